@@ -0,0 +1,35 @@
+/**
+ * Benchmarks.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * <p>
+ * {@code Benchmarks} runs the JMH benchmarks. It accepts JMH's usual command line options, e.g. a regular
+ * expression selecting benchmarks or {@code -p} to override parameters, and always adds the GC profiler, so that
+ * allocation rates are reported alongside the timings.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public final class Benchmarks {
+    private Benchmarks() {}
+    
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build()).run();
+    }
+}
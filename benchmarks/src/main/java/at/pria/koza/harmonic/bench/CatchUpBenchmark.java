@@ -0,0 +1,74 @@
+/**
+ * CatchUpBenchmark.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.pria.koza.harmonic.BranchManager;
+import at.pria.koza.harmonic.State;
+
+
+/**
+ * <p>
+ * {@code CatchUpBenchmark} measures a full synchronization of a branch with the given history depth to a
+ * {@link BranchManager} that doesn't know any of it yet, as happens when a new node joins.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatchUpBenchmark {
+    @Param({"100", "10000"})
+    public int            depth;
+    @Param({"0", "256"})
+    public int            actionSize;
+    @Param({"none", "plain", "deflate"})
+    public String         codec;
+    
+    private BranchManager sender, receiver;
+    private Loopback      loopback;
+    
+    @Setup
+    public void setup() {
+        sender = Histories.newManager(1);
+        Histories.extend(sender, depth, actionSize);
+    }
+    
+    @Setup(Level.Invocation)
+    public void newReceiver() {
+        //an invocation takes long enough for per-invocation setup not to distort the results; the sender must
+        //forget what the previous receiver knew, as the new one reuses its id
+        sender.forgetEngine(2);
+        receiver = Histories.newReceiver(2);
+        loopback = new Loopback(sender, receiver, Histories.codec(codec, receiver));
+    }
+    
+    @Benchmark
+    public State catchUp() {
+        loopback.sync(BranchManager.BRANCH_DEFAULT);
+        return receiver.getBranchTip(BranchManager.BRANCH_DEFAULT);
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * CodecBenchmark.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.pria.koza.harmonic.BranchManager;
+import at.pria.koza.harmonic.BranchManager.SyncCallback;
+import at.pria.koza.harmonic.jGroups.SyncCodec;
+import at.pria.koza.harmonic.proto.HarmonicP.SyncP;
+import at.pria.koza.polybuf.proto.Polybuf.Obj;
+
+
+/**
+ * <p>
+ * {@code CodecBenchmark} measures {@linkplain SyncCodec#encode(SyncP) encoding} and
+ * {@linkplain SyncCodec#decode(byte[], int, int) decoding} a message carrying the given number of missing states,
+ * with and without compression. Run with the GC profiler, which {@link Benchmarks} adds by default, to see the
+ * allocation per operation.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"16", "256"})
+    public int        states;
+    @Param({"0", "256"})
+    public int        actionSize;
+    @Param({"plain", "deflate"})
+    public String     codec;
+    
+    private SyncCodec syncCodec;
+    private SyncP     message;
+    private byte[]    encoded;
+    
+    @Setup
+    public void setup() {
+        BranchManager mgr = Histories.newManager(1);
+        Histories.extend(mgr, states, actionSize);
+        syncCodec = Histories.codec(codec, mgr);
+        
+        //capture the missing states since the root, as they would be sent to a new BranchManager
+        final SyncP.Builder b = SyncP.newBuilder();
+        mgr.sendMissing(2, BranchManager.BRANCH_DEFAULT, 0l, new SyncCallback() {
+            @Override
+            public void sendUpdateCallback(int engine, String branch, Obj state, long... ancestors) {}
+            
+            @Override
+            public void receiveUpdateCallback(int engine, String branch, long ancestor) {}
+            
+            @Override
+            public void sendMissingCallback(int engine, String branch, long state, Obj... ancestors) {
+                b.setType(SyncP.Type.RECEIVE_MISSING);
+                b.setEngine(engine);
+                b.setBranch(branch);
+                b.addStateIds(state);
+                for(Obj obj:ancestors)
+                    b.addStates(obj);
+            }
+        });
+        message = b.build();
+        encoded = syncCodec.encode(message);
+    }
+    
+    @Benchmark
+    public byte[] encode() {
+        return syncCodec.encode(message);
+    }
+    
+    @Benchmark
+    public SyncP decode() throws IOException {
+        return syncCodec.decode(encoded, 0, encoded.length);
+    }
+}
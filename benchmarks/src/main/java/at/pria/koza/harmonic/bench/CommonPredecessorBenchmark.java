@@ -0,0 +1,95 @@
+/**
+ * CommonPredecessorBenchmark.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.pria.koza.harmonic.BranchManager;
+import at.pria.koza.harmonic.State;
+
+import com.google.protobuf.ByteString;
+
+
+/**
+ * <p>
+ * {@code CommonPredecessorBenchmark} measures {@link State#getCommonPredecessor(State)} for random pairs of
+ * states in a history of the given depth, consisting of the given number of branches that fork at random
+ * depths.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonPredecessorBenchmark {
+    private static final int PAIRS = 1024;
+    
+    @Param({"1000", "100000"})
+    public int               depth;
+    @Param({"1", "16"})
+    public int               branches;
+    
+    private State[]          first, second;
+    private int              index;
+    
+    @Setup
+    public void setup() {
+        BranchManager mgr = Histories.newManager(1);
+        Random random = new Random(depth * 31 + branches);
+        ByteString payload = ByteString.EMPTY;
+        
+        //the default branch has the full depth, the others fork from a random ancestor of an existing branch and
+        //add up to their share of the depth
+        Histories.extend(mgr, depth, payload);
+        State[] tips = new State[branches];
+        tips[0] = mgr.getBranchTip(mgr.getCurrentBranch());
+        for(int i = 1; i < branches; i++) {
+            State base = tips[random.nextInt(i)];
+            String branch = "branch" + i;
+            mgr.createBranch(branch, base.getAncestor(random.nextInt(base.getDepth() + 1)));
+            mgr.setCurrentBranch(branch);
+            Histories.extend(mgr, 1 + random.nextInt(Math.max(depth / branches, 1)), payload);
+            tips[i] = mgr.getBranchTip(branch);
+        }
+        
+        first = new State[PAIRS];
+        second = new State[PAIRS];
+        for(int i = 0; i < PAIRS; i++) {
+            first[i] = randomState(random, tips);
+            second[i] = randomState(random, tips);
+        }
+    }
+    
+    private static State randomState(Random random, State[] tips) {
+        State tip = tips[random.nextInt(tips.length)];
+        return tip.getAncestor(random.nextInt(tip.getDepth() + 1));
+    }
+    
+    @Benchmark
+    public State getCommonPredecessor() {
+        int i = index++ & (PAIRS - 1);
+        return first[i].getCommonPredecessor(second[i]);
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Counter.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import at.pria.koza.harmonic.Engine;
+import at.pria.koza.harmonic.Entity;
+
+
+/**
+ * <p>
+ * {@code Counter} is the entity modified by the benchmarks' {@link Increment} actions.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class Counter implements Entity {
+    private static final long serialVersionUID = 1L;
+    
+    long                      value;
+    
+    public Counter(Engine engine) {}
+    
+    public long getValue() {
+        return value;
+    }
+}
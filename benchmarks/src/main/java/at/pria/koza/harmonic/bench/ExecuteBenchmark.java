@@ -0,0 +1,66 @@
+/**
+ * ExecuteBenchmark.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.pria.koza.harmonic.BranchManager;
+
+import com.google.protobuf.ByteString;
+
+
+/**
+ * <p>
+ * {@code ExecuteBenchmark} measures {@link BranchManager#execute(at.pria.koza.harmonic.Action) executing} an
+ * action on the current branch, which includes serializing the action, creating the state and applying it.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteBenchmark {
+    @Param({"0", "64", "1024"})
+    public int            actionSize;
+    @Param({"0", "64"})
+    public int            checkpointInterval;
+    
+    private BranchManager mgr;
+    private ByteString    payload;
+    
+    @Setup(Level.Iteration)
+    public void setup() {
+        //a new manager for every iteration, so that the history doesn't grow without bounds
+        mgr = Histories.newManager(1);
+        mgr.getEngine().setCheckpointInterval(checkpointInterval);
+        payload = Histories.payload(actionSize);
+    }
+    
+    @Benchmark
+    public Increment execute() {
+        return mgr.execute(new Increment(mgr.getEngine(), 0, 1, payload));
+    }
+}
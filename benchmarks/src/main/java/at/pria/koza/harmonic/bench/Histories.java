@@ -0,0 +1,158 @@
+/**
+ * Histories.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import java.io.IOException;
+import java.util.Random;
+
+import at.pria.koza.harmonic.BranchManager;
+import at.pria.koza.harmonic.Engine;
+import at.pria.koza.harmonic.jGroups.SyncCodec;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+
+
+/**
+ * <p>
+ * {@code Histories} contains helpers for setting up the {@link BranchManager BranchManagers} and state histories
+ * the benchmarks operate on.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+final class Histories {
+    private static final String[] COMMANDS = {"move", "attack", "build", "harvest", "patrol"};
+    
+    private Histories() {}
+    
+    /**
+     * <p>
+     * Creates a BranchManager that is configured for {@link Increment} actions, and whose current branch already
+     * contains the {@link Counter} with id zero.
+     * </p>
+     * 
+     * @param id the id of the BranchManager's engine
+     * @return the new BranchManager
+     */
+    public static BranchManager newManager(int id) {
+        BranchManager mgr = newReceiver(id);
+        mgr.execute(new Increment(mgr.getEngine(), -1, 0, ByteString.EMPTY));
+        return mgr;
+    }
+    
+    /**
+     * <p>
+     * Creates a BranchManager that is configured for {@link Increment} actions, but has no history. It is meant to
+     * receive its history from other BranchManagers.
+     * </p>
+     * 
+     * @param id the id of the BranchManager's engine
+     * @return the new BranchManager
+     */
+    public static BranchManager newReceiver(int id) {
+        BranchManager mgr = new BranchManager(id);
+        Engine engine = mgr.getEngine();
+        mgr.configure(engine.getConfig());
+        Increment.configure(engine.getConfig(), engine);
+        return mgr;
+    }
+    
+    /**
+     * <p>
+     * Returns the codec for the given mode: {@code none} to pass data directly, without encoding it; {@code plain}
+     * for encoding without compression; or {@code deflate} for encoding with compression.
+     * </p>
+     * 
+     * @param mode the codec mode
+     * @param mgr the BranchManager whose protobuf extensions the codec must know
+     * @return the codec, or {@code null} for mode {@code none}
+     */
+    public static SyncCodec codec(String mode, BranchManager mgr) {
+        switch(mode) {
+            case "none":
+                return null;
+            case "plain":
+                return new SyncCodec(mgr.getEngine().getConfig().getRegistry());
+            case "deflate": {
+                SyncCodec codec = new SyncCodec(mgr.getEngine().getConfig().getRegistry());
+                codec.setCompressing(true);
+                return codec;
+            }
+            default:
+                throw new IllegalArgumentException(mode);
+        }
+    }
+    
+    /**
+     * <p>
+     * Returns a payload of the given size, filled with pseudo random commands encoded like protobuf messages, so
+     * that it compresses about as well as real action data might: the structure repeats, but the values vary.
+     * </p>
+     * 
+     * @param size the payload size in bytes
+     * @return the payload
+     */
+    public static ByteString payload(int size) {
+        return payload(size, new Random(size));
+    }
+    
+    private static ByteString payload(int size, Random random) {
+        if(size == 0) return ByteString.EMPTY;
+        try {
+            ByteString.Output bytes = ByteString.newOutput(size + 32);
+            CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+            while(out.getTotalBytesWritten() < size) {
+                out.writeString(1, COMMANDS[random.nextInt(COMMANDS.length)]);
+                out.writeSInt32(2, random.nextInt(64));
+                out.writeSInt32(3, random.nextInt(256) - 128);
+                out.writeSInt32(4, random.nextInt(256) - 128);
+                out.writeBool(5, random.nextBoolean());
+            }
+            out.flush();
+            return bytes.toByteString().substring(0, size);
+        } catch(IOException ex) {
+            //writing to memory does not fail
+            throw new AssertionError(ex);
+        }
+    }
+    
+    /**
+     * <p>
+     * Executes the given number of {@link Increment} actions on the BranchManager's current branch.
+     * </p>
+     * 
+     * @param mgr the BranchManager whose current branch to extend
+     * @param states the number of actions to execute
+     * @param payload the payload of the actions
+     */
+    public static void extend(BranchManager mgr, int states, ByteString payload) {
+        Engine engine = mgr.getEngine();
+        for(int i = 0; i < states; i++)
+            mgr.execute(new Increment(engine, 0, 1, payload));
+    }
+    
+    /**
+     * <p>
+     * Executes the given number of {@link Increment} actions on the BranchManager's current branch, each with a
+     * different {@linkplain #payload(int) payload} of the given size. Unlike with a shared payload, the resulting
+     * history doesn't compress better than a real one would.
+     * </p>
+     * 
+     * @param mgr the BranchManager whose current branch to extend
+     * @param states the number of actions to execute
+     * @param payloadSize the payload size of the actions in bytes
+     */
+    public static void extend(BranchManager mgr, int states, int payloadSize) {
+        Engine engine = mgr.getEngine();
+        Random random = new Random(payloadSize);
+        for(int i = 0; i < states; i++)
+            mgr.execute(new Increment(engine, 0, 1, payload(payloadSize, random)));
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Increment.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import at.pria.koza.harmonic.Action;
+import at.pria.koza.harmonic.Engine;
+import at.pria.koza.harmonic.Modification;
+import at.pria.koza.harmonic.bench.proto.BenchP.IncrementP;
+import at.pria.koza.polybuf.PolybufConfig;
+import at.pria.koza.polybuf.PolybufException;
+import at.pria.koza.polybuf.PolybufIO;
+import at.pria.koza.polybuf.PolybufInput;
+import at.pria.koza.polybuf.PolybufOutput;
+import at.pria.koza.polybuf.PolybufSerializable;
+import at.pria.koza.polybuf.proto.Polybuf.Obj;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.GeneratedMessage.GeneratedExtension;
+
+
+/**
+ * <p>
+ * {@code Increment} is the action executed by the benchmarks. It adds an amount to a {@link Counter}, or creates
+ * a new counter if the counter id is negative. An optional payload, which is only serialized, allows to control
+ * the size of the action on the wire.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class Increment extends Action implements PolybufSerializable {
+    public static final int                                 FIELD     = IncrementP.INCREMENT_FIELD_NUMBER;
+    public static final GeneratedExtension<Obj, IncrementP> EXTENSION = IncrementP.increment;
+    
+    public static PolybufIO<Increment> getIO(Engine engine) {
+        return new IO(engine);
+    }
+    
+    public static void configure(PolybufConfig config, Engine engine) {
+        config.add(getIO(engine));
+    }
+    
+    private final int        counter;
+    private final int        amount;
+    private final ByteString payload;
+    
+    public Increment(Engine engine, int counter, int amount, ByteString payload) {
+        super(engine);
+        this.counter = counter;
+        this.amount = amount;
+        this.payload = payload;
+    }
+    
+    @Override
+    public int getTypeId() {
+        return FIELD;
+    }
+    
+    @Override
+    protected void apply0() {
+        if(counter < 0) {
+            new Counter(getEngine());
+        } else {
+            new Add((Counter) getEngine().getEntity(counter), amount).apply();
+        }
+    }
+    
+    private static class Add extends Modification {
+        private final Counter counter;
+        private final int     amount;
+        
+        public Add(Counter counter, int amount) {
+            this.counter = counter;
+            this.amount = amount;
+        }
+        
+        @Override
+        protected void apply0() {
+            counter.value += amount;
+        }
+        
+        @Override
+        protected void revert() {
+            counter.value -= amount;
+        }
+    }
+    
+    private static class IO implements PolybufIO<Increment> {
+        private final Engine engine;
+        
+        public IO(Engine engine) {
+            this.engine = engine;
+        }
+        
+        @Override
+        public int getType() {
+            return FIELD;
+        }
+        
+        @Override
+        public GeneratedExtension<Obj, IncrementP> getExtension() {
+            return EXTENSION;
+        }
+        
+        @Override
+        public void serialize(PolybufOutput out, Increment object, Obj.Builder obj) throws PolybufException {
+            IncrementP.Builder b = IncrementP.newBuilder();
+            b.setCounter(object.counter);
+            b.setAmount(object.amount);
+            if(!object.payload.isEmpty()) b.setPayload(object.payload);
+            
+            obj.setExtension(EXTENSION, b.build());
+        }
+        
+        @Override
+        public Increment initialize(PolybufInput in, Obj obj) throws PolybufException {
+            IncrementP p = obj.getExtension(EXTENSION);
+            return new Increment(engine, p.getCounter(), p.getAmount(), p.getPayload());
+        }
+        
+        @Override
+        public void deserialize(PolybufInput in, Obj obj, Increment object) throws PolybufException {}
+    }
+}
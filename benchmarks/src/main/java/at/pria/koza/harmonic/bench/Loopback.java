@@ -0,0 +1,129 @@
+/**
+ * Loopback.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import java.io.IOException;
+
+import at.pria.koza.harmonic.BranchManager;
+import at.pria.koza.harmonic.BranchManager.SyncCallback;
+import at.pria.koza.harmonic.jGroups.SyncCodec;
+import at.pria.koza.harmonic.proto.HarmonicP.SyncP;
+import at.pria.koza.polybuf.proto.Polybuf.Obj;
+
+
+/**
+ * <p>
+ * {@code Loopback} synchronizes a branch from one {@link BranchManager} to another in the same process, by
+ * directly passing the data of every {@link SyncCallback} call to the other BranchManager. If a {@link SyncCodec}
+ * is given, every message is encoded and decoded on the way, like by the JGroups adapter, without involving the
+ * network.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+class Loopback implements SyncCallback {
+    private final BranchManager from, to;
+    private final SyncCodec     codec;
+    private long                bytes;
+    
+    public Loopback(BranchManager from, BranchManager to, SyncCodec codec) {
+        this.from = from;
+        this.to = to;
+        this.codec = codec;
+    }
+    
+    /**
+     * <p>
+     * Returns the number of bytes of all messages encoded so far, i.e. the bytes that would have been sent over
+     * the network. This is always zero if no codec is used.
+     * </p>
+     * 
+     * @return the number of encoded bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+    
+    /**
+     * <p>
+     * Sends an update of the given branch, including all missing states, to the receiving BranchManager.
+     * </p>
+     * 
+     * @param branch the branch to synchronize
+     */
+    public void sync(String branch) {
+        from.sendUpdate(to.getEngine().getId(), branch, this);
+    }
+    
+    @Override
+    public void sendUpdateCallback(int engine, String branch, Obj state, long... ancestors) {
+        if(codec != null) {
+            SyncP.Builder b = SyncP.newBuilder();
+            b.setType(SyncP.Type.RECEIVE_UPDATE);
+            b.setEngine(engine);
+            b.setBranch(branch);
+            b.addStates(state);
+            for(long l:ancestors)
+                b.addStateIds(l);
+            SyncP m = transmit(b);
+            engine = m.getEngine();
+            branch = m.getBranch();
+            state = m.getStates(0);
+            ancestors = new long[m.getStateIdsCount()];
+            for(int i = 0; i < ancestors.length; i++)
+                ancestors[i] = m.getStateIds(i);
+        }
+        to.receiveUpdate(engine, branch, state, ancestors, this);
+    }
+    
+    @Override
+    public void receiveUpdateCallback(int engine, String branch, long ancestor) {
+        if(codec != null) {
+            SyncP.Builder b = SyncP.newBuilder();
+            b.setType(SyncP.Type.SEND_MISSING);
+            b.setEngine(engine);
+            b.setBranch(branch);
+            b.addStateIds(ancestor);
+            SyncP m = transmit(b);
+            engine = m.getEngine();
+            branch = m.getBranch();
+            ancestor = m.getStateIds(0);
+        }
+        from.sendMissing(engine, branch, ancestor, this);
+    }
+    
+    @Override
+    public void sendMissingCallback(int engine, String branch, long state, Obj... ancestors) {
+        if(codec != null) {
+            SyncP.Builder b = SyncP.newBuilder();
+            b.setType(SyncP.Type.RECEIVE_MISSING);
+            b.setEngine(engine);
+            b.setBranch(branch);
+            b.addStateIds(state);
+            for(Obj obj:ancestors)
+                b.addStates(obj);
+            SyncP m = transmit(b);
+            engine = m.getEngine();
+            branch = m.getBranch();
+            state = m.getStateIds(0);
+            ancestors = m.getStatesList().toArray(new Obj[m.getStatesCount()]);
+        }
+        to.receiveMissing(engine, branch, state, ancestors);
+    }
+    
+    private SyncP transmit(SyncP.Builder message) {
+        byte[] data = codec.encode(message.build());
+        bytes += data.length;
+        try {
+            return codec.decode(data, 0, data.length);
+        } catch(IOException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+}
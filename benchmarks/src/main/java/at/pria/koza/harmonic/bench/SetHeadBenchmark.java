@@ -0,0 +1,88 @@
+/**
+ * SetHeadBenchmark.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.pria.koza.harmonic.BranchManager;
+import at.pria.koza.harmonic.Engine;
+import at.pria.koza.harmonic.State;
+
+import com.google.protobuf.ByteString;
+
+
+/**
+ * <p>
+ * {@code SetHeadBenchmark} measures {@linkplain Engine#setHead(State) moving the head} back and forth between the
+ * tips of two branches. Both branches fork from a common history and contain {@code forkDepth} states of their
+ * own, so every move reverts and applies that many states, unless checkpoints or cached actions shortcut it.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetHeadBenchmark {
+    private static final String FORK = "fork";
+    
+    @Param({"1000", "10000"})
+    public int                  depth;
+    @Param({"1", "16", "256"})
+    public int                  forkDepth;
+    @Param({"0", "64"})
+    public int                  checkpointInterval;
+    @Param({"0", "1024"})
+    public int                  actionCacheSize;
+    
+    private Engine              engine;
+    private State               tip, forkTip;
+    private boolean             forked;
+    
+    @Setup
+    public void setup() {
+        BranchManager mgr = Histories.newManager(1);
+        engine = mgr.getEngine();
+        engine.setCheckpointInterval(checkpointInterval);
+        engine.setActionCacheSize(actionCacheSize);
+        
+        ByteString payload = ByteString.EMPTY;
+        Histories.extend(mgr, Math.max(depth - forkDepth, 0), payload);
+        mgr.createBranchHere(FORK);
+        Histories.extend(mgr, forkDepth, payload);
+        tip = mgr.getBranchTip(mgr.getCurrentBranch());
+        
+        mgr.setCurrentBranch(FORK);
+        Histories.extend(mgr, forkDepth, payload);
+        forkTip = mgr.getBranchTip(FORK);
+        forked = true;
+    }
+    
+    @Benchmark
+    public State setHead() {
+        //the BranchManager is bypassed, as the benchmark only measures the engine
+        forked = !forked;
+        engine.setHead(forked? forkTip:tip);
+        return engine.getHead();
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * SyncBenchmark.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.pria.koza.harmonic.BranchManager;
+import at.pria.koza.harmonic.State;
+
+import com.google.protobuf.ByteString;
+
+
+/**
+ * <p>
+ * {@code SyncBenchmark} measures incremental synchronization rounds between two {@link BranchManager
+ * BranchManagers}: in every round, the sender's default branch is extended by some states, and all of the
+ * sender's branches are synchronized to the receiver, going through {@code sendUpdate}, {@code receiveUpdate},
+ * {@code sendMissing} and {@code receiveMissing}. Only the default branch has something to transmit; the other
+ * branches measure the cost of finding that a branch is up to date.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyncBenchmark {
+    private static final int INITIAL_DEPTH = 100;
+    
+    @Param({"1", "64"})
+    public int               states;
+    @Param({"1", "4"})
+    public int               branches;
+    @Param({"0", "256"})
+    public int               actionSize;
+    @Param({"none", "plain", "deflate"})
+    public String            codec;
+    
+    private BranchManager    sender, receiver;
+    private Loopback         loopback;
+    private ByteString       payload;
+    
+    @Setup(Level.Iteration)
+    public void setup() {
+        //new managers for every iteration, so that the history doesn't grow without bounds
+        sender = Histories.newManager(1);
+        receiver = Histories.newReceiver(2);
+        loopback = new Loopback(sender, receiver, Histories.codec(codec, receiver));
+        payload = Histories.payload(actionSize);
+        
+        Histories.extend(sender, INITIAL_DEPTH, payload);
+        for(int i = 1; i < branches; i++)
+            sender.createBranchHere("branch" + i);
+        for(String branch:sender.getBranches())
+            loopback.sync(branch);
+    }
+    
+    @Benchmark
+    public State sync() {
+        Histories.extend(sender, states, payload);
+        for(String branch:sender.getBranches())
+            loopback.sync(branch);
+        return receiver.getBranchTip(BranchManager.BRANCH_DEFAULT);
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * WireSize.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.bench;
+
+
+import at.pria.koza.harmonic.BranchManager;
+
+
+/**
+ * <p>
+ * {@code WireSize} reports the bytes on the wire of a full synchronization of a branch to a {@link BranchManager}
+ * that doesn't know any of it yet, like {@link CatchUpBenchmark} performs it, with and without compression. The
+ * sizes are deterministic, so unlike timings, they are simply computed once instead of being benchmarked.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public final class WireSize {
+    private static final int[] DEPTHS       = {100, 10000};
+    private static final int[] ACTION_SIZES = {0, 64, 256};
+    
+    private WireSize() {}
+    
+    public static void main(String[] args) {
+        System.out.printf("%8s %10s %12s %12s %8s%n", "depth", "actionSize", "plain", "deflate", "ratio");
+        for(int depth:DEPTHS)
+            for(int actionSize:ACTION_SIZES) {
+                BranchManager sender = Histories.newManager(1);
+                Histories.extend(sender, depth, actionSize);
+                long plain = catchUp(sender, "plain");
+                long deflate = catchUp(sender, "deflate");
+                double ratio = (double) deflate / plain;
+                System.out.printf("%8d %10d %12d %12d %8.3f%n", depth, actionSize, plain, deflate, ratio);
+            }
+    }
+    
+    private static long catchUp(BranchManager sender, String codec) {
+        sender.forgetEngine(2);
+        BranchManager receiver = Histories.newReceiver(2);
+        Loopback loopback = new Loopback(sender, receiver, Histories.codec(codec, receiver));
+        loopback.sync(BranchManager.BRANCH_DEFAULT);
+        return loopback.getBytes();
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * HeadMoveEvent.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.jfr;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * <p>
+ * Recorded when an engine's head is moved, covering all reverted and applied states.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@Name("harmonic.HeadMove")
+@Label("Head Move")
+@Category("Harmonic")
+@Description("An engine's head was moved")
+class HeadMoveEvent extends jdk.jfr.Event {
+    @Label("Previous Head")
+    long    prevHead;
+    @Label("New Head")
+    long    newHead;
+    @Label("Revert Depth")
+    int     revertDepth;
+    @Label("Apply Depth")
+    int     applyDepth;
+    @Label("Checkpoint Restored")
+    boolean restored;
+}
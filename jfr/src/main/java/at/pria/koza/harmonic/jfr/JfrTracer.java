@@ -0,0 +1,116 @@
+/**
+ * JfrTracer.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.jfr;
+
+
+import at.pria.koza.harmonic.Action;
+import at.pria.koza.harmonic.State;
+import at.pria.koza.harmonic.trace.Tracer;
+
+
+/**
+ * <p>
+ * A {@code JfrTracer} records Harmonic's operations as JDK Flight Recorder events in the "Harmonic" category, so
+ * they can be correlated with GC pauses and thread stalls in the same recording. When no recording has the events
+ * enabled, the {@code begin} methods return {@code null} and no further work is done.
+ * </p>
+ * <p>
+ * Install it with {@link at.pria.koza.harmonic.Engine#setTracer(Tracer) Engine.setTracer(new JfrTracer())}; a
+ * single instance can be shared by any number of engines.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class JfrTracer implements Tracer {
+    private static <E extends jdk.jfr.Event> E begin(E event) {
+        if(!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+    
+    @Override
+    public Object beginApply() {
+        return begin(new StateApplyEvent());
+    }
+    
+    @Override
+    public void endApply(Object span, State state, Action action) {
+        StateApplyEvent event = (StateApplyEvent) span;
+        event.end();
+        if(!event.shouldCommit()) return;
+        event.stateId = state.getId();
+        event.actionType = action.getClass().getName();
+        event.commit();
+    }
+    
+    @Override
+    public Object beginRevert() {
+        return begin(new StateRevertEvent());
+    }
+    
+    @Override
+    public void endRevert(Object span, State state, Action action) {
+        StateRevertEvent event = (StateRevertEvent) span;
+        event.end();
+        if(!event.shouldCommit()) return;
+        event.stateId = state.getId();
+        event.actionType = action.getClass().getName();
+        event.commit();
+    }
+    
+    @Override
+    public Object beginHeadMove() {
+        return begin(new HeadMoveEvent());
+    }
+    
+    @Override
+    public void endHeadMove(Object span, State prevHead, State newHead, int reverted, int applied, boolean restored) {
+        HeadMoveEvent event = (HeadMoveEvent) span;
+        event.end();
+        if(!event.shouldCommit()) return;
+        event.prevHead = prevHead.getId();
+        event.newHead = newHead.getId();
+        event.revertDepth = reverted;
+        event.applyDepth = applied;
+        event.restored = restored;
+        event.commit();
+    }
+    
+    @Override
+    public Object beginSync() {
+        return begin(new SyncEvent());
+    }
+    
+    @Override
+    public void endSync(Object span, String operation, int engine, String branch, int states) {
+        SyncEvent event = (SyncEvent) span;
+        event.end();
+        if(!event.shouldCommit()) return;
+        event.operation = operation;
+        event.engine = engine;
+        event.branch = branch;
+        event.states = states;
+        event.commit();
+    }
+    
+    @Override
+    public Object beginMessage() {
+        return begin(new MessageEvent());
+    }
+    
+    @Override
+    public void endMessage(Object span, boolean sent, String type, int bytes) {
+        MessageEvent event = (MessageEvent) span;
+        event.end();
+        if(!event.shouldCommit()) return;
+        event.sent = sent;
+        event.type = type;
+        event.bytes = bytes;
+        event.commit();
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * MessageEvent.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.jfr;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * <p>
+ * Recorded when a synchronization message is encoded and sent, or received and decoded.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@Name("harmonic.Message")
+@Label("Message")
+@Category("Harmonic")
+@Description("A synchronization message was sent or received")
+class MessageEvent extends jdk.jfr.Event {
+    @Label("Sent")
+    boolean sent;
+    @Label("Type")
+    String  type;
+    @Label("Size")
+    @DataAmount
+    int     bytes;
+}
@@ -0,0 +1,33 @@
+/**
+ * StateApplyEvent.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.jfr;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * <p>
+ * Recorded when a state's action is applied to the engine.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@Name("harmonic.StateApply")
+@Label("State Apply")
+@Category("Harmonic")
+@Description("A state's action was applied")
+class StateApplyEvent extends jdk.jfr.Event {
+    @Label("State")
+    long   stateId;
+    @Label("Action Type")
+    String actionType;
+}
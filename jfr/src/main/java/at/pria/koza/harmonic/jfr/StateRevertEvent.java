@@ -0,0 +1,33 @@
+/**
+ * StateRevertEvent.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.jfr;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * <p>
+ * Recorded when a state's action is reverted.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@Name("harmonic.StateRevert")
+@Label("State Revert")
+@Category("Harmonic")
+@Description("A state's action was reverted")
+class StateRevertEvent extends jdk.jfr.Event {
+    @Label("State")
+    long   stateId;
+    @Label("Action Type")
+    String actionType;
+}
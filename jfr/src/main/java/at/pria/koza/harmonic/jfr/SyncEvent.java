@@ -0,0 +1,37 @@
+/**
+ * SyncEvent.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.jfr;
+
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+
+/**
+ * <p>
+ * Recorded when a BranchManager performs a step of the synchronization protocol.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+@Name("harmonic.Sync")
+@Label("Sync")
+@Category("Harmonic")
+@Description("A step of the synchronization protocol was performed")
+class SyncEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+    @Label("Remote Engine")
+    int    engine;
+    @Label("Branch")
+    String branch;
+    @Label("States")
+    int    states;
+}
@@ -0,0 +1,51 @@
+/**
+ * AbstractField.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+/**
+ * <p>
+ * The class {@code AbstractField} is the base of Harmonic's built-in modifications of single entity fields. A
+ * field object describes how to read and write one field of an entity class, and is usually created once per
+ * field and stored in a constant. Its {@code set()} method then changes the field of a given entity and records
+ * the old value in the current {@link Action}'s undo log, so that the change can be reverted. Unlike a
+ * {@link Modification}, a field change doesn't create an object, and primitive values are not boxed.
+ * </p>
+ * <p>
+ * Setting a field must happen while an action is being applied, just like {@linkplain Modification#apply()
+ * applying} a modification. Setting a field to the value it already has is not recorded, and neither is setting a
+ * field that the action already changed: reverting the first change restores the value from before the action.
+ * There are subclasses for {@code int}, {@code long}, {@code double}, {@code boolean} and reference fields; other
+ * primitive types can use the {@code int} or {@code long} variant.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ * @param <E> the entity class declaring the field
+ */
+public abstract class AbstractField<E extends Entity> {
+    //used by the action to find earlier changes of the same field
+    final int hash = System.identityHashCode(this);
+    
+    AbstractField() {}
+    
+    /**
+     * <p>
+     * Called by {@link Action#revert()}. Restores the old value of this field in the given entity.
+     * </p>
+     * 
+     * @param entity the entity whose field to restore
+     * @param bits the field's old primitive value
+     * @param ref the field's old reference value
+     */
+    @SuppressWarnings("unchecked")
+    final void revert(Entity entity, long bits, Object ref) {
+        revert0((E) entity, bits, ref);
+    }
+    
+    abstract void revert0(E entity, long bits, Object ref);
+}
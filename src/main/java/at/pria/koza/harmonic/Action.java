@@ -7,17 +7,14 @@
 package at.pria.koza.harmonic;
 
 
-import java.util.Deque;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.Arrays;
 
 
 /**
  * <p>
  * The class {@code Action} represents a high-level change that can happen in the {@link Engine}. An {@code Action}
- * causes one or more {@link Modification Modifications} to happen. These are stored in a list, so they can be
- * {@linkplain #revert() reverted} if necessary.
+ * causes one or more {@link Modification Modifications} and {@linkplain AbstractField field} changes to happen.
+ * These are stored in an undo log, so they can be {@linkplain #revert() reverted} if necessary.
  * </p>
  * <p>
  * As an {@code Action} represents an executable, replayable, and even revertable piece of code, calling it is of
@@ -32,17 +29,30 @@ import java.util.ListIterator;
  * @author SillyFreak
  */
 public abstract class Action {
-    private static final ThreadLocal<Deque<Action>> actions;
+    private static final Object[]             NO_REFS          = {};
+    private static final long[]               NO_BITS          = {};
+    private static final int[]                NO_SLOTS         = {};
+    
+    private static final ThreadLocal<Context> contexts;
+    //the context last used; usually, actions are applied by a single thread, which then skips the thread local
+    private static Context                    context;
     
     static {
-        actions = new ThreadLocal<Deque<Action>>() {
+        contexts = new ThreadLocal<Context>() {
             @Override
-            protected Deque<Action> initialValue() {
-                return new LinkedList<>();
+            protected Context initialValue() {
+                return new Context();
             }
         };
     }
     
+    private static Context context() {
+        //a context is only used by its thread, whose field is final and therefore seen correctly by all threads
+        Context c = context;
+        if(c == null || c.thread != Thread.currentThread()) context = c = contexts.get();
+        return c;
+    }
+    
     /**
      * <p>
      * Returns the currently active action. That action is the one that modifications will be added to.
@@ -51,24 +61,48 @@ public abstract class Action {
      * @return the currently active action
      */
     static Action get() {
-        Action a = actions.get().peekFirst();
-        if(a == null) throw new IllegalStateException("No action active");
-        return a;
+        Context c = context();
+        if(c.size == 0) throw new IllegalStateException("No action active");
+        return c.stack[c.size - 1];
     }
     
     private static void push(Action a) {
-        actions.get().addFirst(a);
+        Context c = context();
+        if(c.size == c.stack.length) c.stack = Arrays.copyOf(c.stack, c.size * 2);
+        c.stack[c.size++] = a;
     }
     
     private static void pop(Action a) {
-        Action a0 = actions.get().pollFirst();
-        if(a == null) throw new IllegalStateException("No action active");
+        Context c = context();
+        if(c.size == 0) throw new IllegalStateException("No action active");
+        Action a0 = c.stack[--c.size];
+        c.stack[c.size] = null;
         assert a == a0;
     }
     
+    /**
+     * <p>
+     * The stack of actions being applied by a thread.
+     * </p>
+     */
+    private static final class Context {
+        private final Thread thread = Thread.currentThread();
+        private Action[]     stack  = new Action[4];
+        private int          size;
+    }
+    
     
-    private final Engine             engine;
-    private final List<Modification> modifications;
+    private final Engine                      engine;
+    //the undo log; it is kept when the action is reset, so that reapplying a cached action doesn't allocate.
+    //every entry has three references - a modification, or a field, its entity and its old reference value - and
+    //one primitive slot for a field's old primitive value
+    private Object[]                          undoRefs;
+    private long[]                            undoBits;
+    private int                               undoCount;
+    //an open addressing index of the field changes in the undo log, by field and entity; slots contain the
+    //entry's index plus one, or zero if empty
+    private int[]                             fieldSlots;
+    private int                               fieldCount;
     
     /**
      * <p>
@@ -79,7 +113,9 @@ public abstract class Action {
      */
     public Action(Engine engine) {
         this.engine = engine;
-        modifications = new LinkedList<Modification>();
+        undoRefs = NO_REFS;
+        undoBits = NO_BITS;
+        fieldSlots = NO_SLOTS;
     }
     
     /**
@@ -112,18 +148,47 @@ public abstract class Action {
     
     /**
      * <p>
-     * Reverts the action by {@linkplain Modification#revert() reverting} every {@link Modification} in reverse
-     * order. This method must only be called by the {@link Engine}. When this method is called, the engine will be
-     * in the same state as it was after {@linkplain #apply() applying} this action.
+     * Reverts the action by {@linkplain Modification#revert() reverting} every {@link Modification} and field
+     * change in reverse order. This method must only be called by the {@link Engine}. When this method is called,
+     * the engine will be in the same state as it was after {@linkplain #apply() applying} this action.
      * </p>
      */
     void revert() {
-        for(ListIterator<Modification> it = modifications.listIterator(modifications.size()); it.hasPrevious();) {
-            it.previous().revert();
-            it.remove();
+        Object[] refs = undoRefs;
+        while(undoCount > 0) {
+            int i = --undoCount, r = i * 3;
+            Object op = refs[r];
+            if(op instanceof Modification) ((Modification) op).revert();
+            else ((AbstractField<?>) op).revert((Entity) refs[r + 1], undoBits[i], refs[r + 2]);
+            refs[r] = refs[r + 1] = refs[r + 2] = null;
         }
+        clearFields();
+    }
+    
+    /**
+     * <p>
+     * Prepares this action for being {@linkplain #apply() applied} again. This method must only be called by the
+     * {@link Engine}, which reuses the decoded actions of reverted states instead of deserializing them again.
+     * This method discards any remaining {@link Modification Modifications} and field changes, and invokes
+     * {@link #reset0()}.
+     * </p>
+     */
+    void reset() {
+        Arrays.fill(undoRefs, 0, undoCount * 3, null);
+        undoCount = 0;
+        clearFields();
+        reset0();
     }
     
+    /**
+     * <p>
+     * Called by {@link #reset()}. Subclasses that keep state beyond their serialized form between {@link #apply0()}
+     * and {@link #revert()} must override this method to restore the state the action had after deserialization.
+     * The default implementation does nothing.
+     * </p>
+     */
+    protected void reset0() {}
+    
     /**
      * <p>
      * Called by {@link Modification#addToAction()}. Adds a {@link Modification} to this action so that it can be
@@ -133,7 +198,80 @@ public abstract class Action {
      * @param m the {@link Modification} to add
      */
     void addModification(Modification m) {
-        modifications.add(m);
+        int i = next();
+        undoRefs[i * 3] = m;
+    }
+    
+    /**
+     * <p>
+     * Called by the {@link AbstractField} subclasses. Records a field change so that it can be subsequently
+     * reverted; the old value is stored in this action's undo log instead of a separate object.
+     * </p>
+     * <p>
+     * Changes are coalesced: if the field of that entity was already changed by this action, the change is not
+     * recorded, as reverting the first change restores the value the field had before the action. The undo log
+     * therefore grows with the number of distinct fields changed, not with the number of changes. Note that this
+     * means that {@link Modification#revert()} may observe fields that are only restored later, so modifications
+     * must not depend on the values of fields also changed through {@link AbstractField}s when reverting.
+     * </p>
+     * 
+     * @param field the changed field
+     * @param entity the entity whose field was changed
+     * @param bits the field's old primitive value
+     * @param ref the field's old reference value
+     */
+    void addFieldChange(AbstractField<?> field, Entity entity, long bits, Object ref) {
+        if(fieldCount * 2 >= fieldSlots.length) growFields();
+        int mask = fieldSlots.length - 1;
+        int slot = hash(field, entity) & mask;
+        for(int e; (e = fieldSlots[slot]) != 0; slot = (slot + 1) & mask) {
+            int r = (e - 1) * 3;
+            if(undoRefs[r] == field && undoRefs[r + 1] == entity) return;
+        }
+        
+        int i = next(), r = i * 3;
+        fieldSlots[slot] = i + 1;
+        fieldCount++;
+        undoRefs[r] = field;
+        undoRefs[r + 1] = entity;
+        undoRefs[r + 2] = ref;
+        undoBits[i] = bits;
+    }
+    
+    private static int hash(AbstractField<?> field, Entity entity) {
+        //entities of an engine have distinct ids; mix the bits, as both ids and field hashes may be clustered
+        int h = field.hash * 31 + entity.getId();
+        return h ^ (h >>> 16);
+    }
+    
+    private void growFields() {
+        int[] slots = new int[Math.max(16, fieldSlots.length * 2)];
+        int mask = slots.length - 1;
+        for(int e:fieldSlots) {
+            if(e == 0) continue;
+            int r = (e - 1) * 3;
+            int slot = hash((AbstractField<?>) undoRefs[r], (Entity) undoRefs[r + 1]) & mask;
+            while(slots[slot] != 0)
+                slot = (slot + 1) & mask;
+            slots[slot] = e;
+        }
+        fieldSlots = slots;
+    }
+    
+    private void clearFields() {
+        if(fieldCount == 0) return;
+        Arrays.fill(fieldSlots, 0);
+        fieldCount = 0;
+    }
+    
+    //returns the index of a new undo log entry
+    private int next() {
+        if(undoCount == undoBits.length) {
+            int capacity = Math.max(8, undoCount * 2);
+            undoRefs = Arrays.copyOf(undoRefs, capacity * 3);
+            undoBits = Arrays.copyOf(undoBits, capacity);
+        }
+        return undoCount++;
     }
     
     /**
@@ -0,0 +1,54 @@
+/**
+ * ActionCache.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * <p>
+ * The class {@code ActionCache} keeps the decoded {@link Action Actions} of recently reverted {@link State States},
+ * so that applying these states again does not need to deserialize their actions again. The cache holds at most
+ * a fixed number of actions, evicting the least recently used one when full.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+class ActionCache extends LinkedHashMap<State, Action> {
+    private static final long serialVersionUID = 1L;
+    
+    private int               capacity;
+    
+    public ActionCache(int capacity) {
+        super(16, 0.75f, true);
+        setCapacity(capacity);
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public void setCapacity(int capacity) {
+        if(capacity < 0) throw new IllegalArgumentException();
+        this.capacity = capacity;
+        
+        //evict in least recently used order if the cache shrunk
+        for(Iterator<State> it = keySet().iterator(); size() > capacity;) {
+            it.next();
+            it.remove();
+        }
+    }
+    
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<State, Action> eldest) {
+        return size() > capacity;
+    }
+}
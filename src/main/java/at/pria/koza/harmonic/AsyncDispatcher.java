@@ -0,0 +1,302 @@
+/**
+ * AsyncDispatcher.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * <p>
+ * An {@code AsyncDispatcher} listens to an engine and optionally a BranchManager, and reports their changes to
+ * {@link BatchListener}s on its own thread, so that listeners don't slow down the threads executing actions,
+ * moving the head or synchronizing. Events that occur while the listeners still process a previous batch are
+ * collected into the next batch: added and removed states are reported as lists, and head and branch events are
+ * coalesced into their net change, so e.g. receiving thousands of states results in a handful of calls.
+ * </p>
+ * <p>
+ * Head and branch events don't take up space in the dispatcher, but states do. The capacity limits the number of
+ * added and removed states waiting to be reported; when it is reached, the engine's thread waits for the
+ * listeners, so that a listener that can't keep up doesn't exhaust memory. Listener exceptions are printed and
+ * don't stop the dispatcher. Events are reported in a batch after they happened, so listeners should not assume
+ * that e.g. a reported head is still the engine's head.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class AsyncDispatcher implements StateRemovalListener, HeadListener, BranchListener, Closeable {
+    public static final int           DEFAULT_CAPACITY = 1 << 16;
+    
+    private final Engine              engine;
+    private final BranchManager       mgr;
+    private final int                 capacity;
+    private final List<BatchListener> listeners        = new ArrayList<>();
+    private final Thread              thread;
+    
+    //the pending batch, guarded by this
+    private Set<State>                added            = new LinkedHashSet<>();
+    private List<State>               removed          = new ArrayList<>();
+    private State                     prevHead, newHead;
+    private Map<String, BranchChange> branches         = new LinkedHashMap<>();
+    private boolean                   pending, closed;
+    
+    /**
+     * <p>
+     * Creates a dispatcher with the {@linkplain #DEFAULT_CAPACITY default capacity} for the given engine.
+     * </p>
+     * 
+     * @param engine the engine whose state and head events to dispatch
+     */
+    public AsyncDispatcher(Engine engine) {
+        this(engine, null, DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * <p>
+     * Creates a dispatcher for the given engine.
+     * </p>
+     * 
+     * @param engine the engine whose state and head events to dispatch
+     * @param capacity the maximum number of added and removed states waiting to be reported
+     */
+    public AsyncDispatcher(Engine engine, int capacity) {
+        this(engine, null, capacity);
+    }
+    
+    /**
+     * <p>
+     * Creates a dispatcher with the {@linkplain #DEFAULT_CAPACITY default capacity} for the given BranchManager
+     * and its engine.
+     * </p>
+     * 
+     * @param mgr the BranchManager whose branch events, and whose engine's state and head events to dispatch
+     */
+    public AsyncDispatcher(BranchManager mgr) {
+        this(mgr.getEngine(), mgr, DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * <p>
+     * Creates a dispatcher for the given BranchManager and its engine.
+     * </p>
+     * 
+     * @param mgr the BranchManager whose branch events, and whose engine's state and head events to dispatch
+     * @param capacity the maximum number of added and removed states waiting to be reported
+     */
+    public AsyncDispatcher(BranchManager mgr, int capacity) {
+        this(mgr.getEngine(), mgr, capacity);
+    }
+    
+    private AsyncDispatcher(Engine engine, BranchManager mgr, int capacity) {
+        if(capacity <= 0) throw new IllegalArgumentException();
+        this.engine = engine;
+        this.mgr = mgr;
+        this.capacity = capacity;
+        
+        thread = new Thread("harmonic-dispatch-" + engine) {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+        
+        engine.addStateListener(this);
+        engine.addHeadListener(this);
+        if(mgr != null) mgr.addBranchListener(this);
+    }
+    
+    public void addBatchListener(BatchListener l) {
+        synchronized(listeners) {
+            listeners.add(l);
+        }
+    }
+    
+    public void removeBatchListener(BatchListener l) {
+        synchronized(listeners) {
+            listeners.remove(l);
+        }
+    }
+    
+    /**
+     * <p>
+     * Stops listening to the engine and BranchManager, and waits until all pending events were reported.
+     * </p>
+     */
+    @Override
+    public void close() {
+        engine.removeStateListener(this);
+        engine.removeHeadListener(this);
+        if(mgr != null) mgr.removeBranchListener(this);
+        
+        synchronized(this) {
+            closed = true;
+            notifyAll();
+        }
+        if(Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    //collecting events
+    
+    private void awaitCapacity() {
+        //the dispatch thread must not wait for itself, e.g. when a listener moves the head
+        if(Thread.currentThread() == thread) return;
+        boolean interrupted = false;
+        while(!closed && added.size() + removed.size() >= capacity) {
+            try {
+                wait();
+            } catch(InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) Thread.currentThread().interrupt();
+    }
+    
+    private void signal() {
+        if(!pending) {
+            pending = true;
+            notifyAll();
+        }
+    }
+    
+    @Override
+    public synchronized void stateAdded(State state) {
+        awaitCapacity();
+        added.add(state);
+        signal();
+    }
+    
+    @Override
+    public synchronized void stateRemoved(State state) {
+        awaitCapacity();
+        //a state added and removed in the same batch is not reported at all
+        if(!added.remove(state)) removed.add(state);
+        signal();
+    }
+    
+    @Override
+    public synchronized void headMoved(State prevHead, State newHead) {
+        if(this.prevHead == null) this.prevHead = prevHead;
+        this.newHead = newHead;
+        signal();
+    }
+    
+    private void branchChanged(String branch, State prevHead, State newHead) {
+        BranchChange change = branches.get(branch);
+        if(change == null) branches.put(branch, new BranchChange(prevHead, newHead));
+        else change.newHead = newHead;
+        signal();
+    }
+    
+    @Override
+    public synchronized void branchCreated(BranchManager mgr, String branch, State head) {
+        branchChanged(branch, null, head);
+    }
+    
+    @Override
+    public synchronized void branchMoved(BranchManager mgr, String branch, State prevHead, State newHead) {
+        branchChanged(branch, prevHead, newHead);
+    }
+    
+    @Override
+    public synchronized void branchDeleted(BranchManager mgr, String branch, State prevHead) {
+        branchChanged(branch, prevHead, null);
+    }
+    
+    //dispatching events
+    
+    private void dispatch() {
+        for(;;) {
+            List<State> added;
+            List<State> removed;
+            State prevHead, newHead;
+            Map<String, BranchChange> branches;
+            synchronized(this) {
+                while(!pending && !closed) {
+                    try {
+                        wait();
+                    } catch(InterruptedException ex) {
+                        //only closing stops the dispatcher
+                    }
+                }
+                if(!pending) return;
+                
+                //take the batch and start a new one
+                added = Collections.unmodifiableList(new ArrayList<>(this.added));
+                removed = Collections.unmodifiableList(this.removed);
+                prevHead = this.prevHead;
+                newHead = this.newHead;
+                branches = this.branches;
+                this.added = new LinkedHashSet<>();
+                this.removed = new ArrayList<>();
+                this.prevHead = this.newHead = null;
+                this.branches = new LinkedHashMap<>();
+                pending = false;
+                //wake up threads waiting for capacity
+                notifyAll();
+            }
+            
+            synchronized(listeners) {
+                for(ListIterator<BatchListener> it = listeners.listIterator(listeners.size()); it.hasPrevious();) {
+                    BatchListener l = it.previous();
+                    try {
+                        fire(l, added, removed, prevHead, newHead, branches);
+                    } catch(RuntimeException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+    
+    private void fire(BatchListener l, List<State> added, List<State> removed, State prevHead, State newHead,
+            Map<String, BranchChange> branches) {
+        if(!added.isEmpty()) l.statesAdded(added);
+        if(prevHead != newHead) l.headMoved(prevHead, newHead);
+        for(Map.Entry<String, BranchChange> entry:branches.entrySet()) {
+            String branch = entry.getKey();
+            BranchChange change = entry.getValue();
+            if(change.prevHead == change.newHead) continue;
+            else if(change.prevHead == null) l.branchCreated(mgr, branch, change.newHead);
+            else if(change.newHead == null) l.branchDeleted(mgr, branch, change.prevHead);
+            else l.branchMoved(mgr, branch, change.prevHead, change.newHead);
+        }
+        if(!removed.isEmpty()) l.statesRemoved(removed);
+    }
+    
+    /**
+     * <p>
+     * The net change of a branch in a batch. A {@code null} previous head means the branch didn't exist before the
+     * batch, a {@code null} new head means it doesn't exist after it.
+     * </p>
+     */
+    private static final class BranchChange {
+        private final State prevHead;
+        private State       newHead;
+        
+        public BranchChange(State prevHead, State newHead) {
+            this.prevHead = prevHead;
+            this.newHead = newHead;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * BatchListener.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import java.util.List;
+
+
+/**
+ * <p>
+ * {@code BatchListener} provides a listener interface for {@link AsyncDispatcher}, which reports the changes of
+ * an engine and its BranchManager in batches on a separate thread. The states added and removed in a batch are
+ * reported in one call each, and head and branch events are coalesced into the net change of the batch:
+ * {@link #headMoved(State, State) headMoved()} is called once with the head before and after the batch, and
+ * every branch changed by the batch is reported once as created, moved or deleted.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public interface BatchListener extends HeadListener, BranchListener {
+    /**
+     * <p>
+     * Called with the states added in a batch, in the order they were added. States that were also removed in the
+     * same batch are not reported.
+     * </p>
+     * 
+     * @param states the added states
+     */
+    public void statesAdded(List<State> states);
+    
+    /**
+     * <p>
+     * Called with the states removed in a batch, in the order they were removed, after all other events of the
+     * batch.
+     * </p>
+     * 
+     * @param states the removed states
+     */
+    public void statesRemoved(List<State> states);
+}
@@ -11,14 +11,18 @@ import static java.util.Collections.*;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
+import at.pria.koza.harmonic.metrics.Counter;
+import at.pria.koza.harmonic.metrics.Gauge;
+import at.pria.koza.harmonic.metrics.Histogram;
+import at.pria.koza.harmonic.metrics.MetricRegistry;
+import at.pria.koza.harmonic.metrics.NoopMetricRegistry;
 import at.pria.koza.harmonic.proto.HarmonicP.StateP;
+import at.pria.koza.harmonic.trace.Tracer;
 import at.pria.koza.polybuf.PolybufConfig;
 import at.pria.koza.polybuf.PolybufException;
 import at.pria.koza.polybuf.PolybufIO;
@@ -53,10 +57,19 @@ public class BranchManager {
     private final Engine                   engine;
     private final Map<String, MetaState[]> branches        = new HashMap<>();
     private final Map<String, MetaState[]> branchesView    = unmodifiableMap(branches);
-    private final Map<Long, MetaState>     states          = new HashMap<>();
+    private final LongMap<MetaState>       states          = new LongMap<>();
+    //for every remote engine, the most recent states known to it; it also knows all their ancestors
+    private final LongMap<List<MetaState>> knownTips       = new LongMap<>();
     private final List<BranchListener>     branchListeners = new ArrayList<>();
     private String                         currentBranch;
     
+    //metrics
+    private boolean                        measuring;
+    private Histogram                      executeTime;
+    private Counter                        updatesSent, updatesReceived;
+    private Counter                        statesSent, statesReceived;
+    private Histogram                      missingSent, missingReceived;
+    
     //ctors & misc
     
     /**
@@ -103,6 +116,7 @@ public class BranchManager {
      */
     private BranchManager(Engine engine) {
         this.engine = engine;
+        initMetrics(engine.getMetricRegistry());
         
         //put the root
         currentBranch = BRANCH_DEFAULT;
@@ -120,14 +134,51 @@ public class BranchManager {
         return engine;
     }
     
+    //metrics
+    
+    /**
+     * <p>
+     * Sets the registry this BranchManager and its engine report metrics to. Besides the
+     * {@linkplain Engine#setMetricRegistry(MetricRegistry) engine's metrics}, these are the time spent executing
+     * actions, and the number of updates and states sent and received.
+     * </p>
+     * 
+     * @param metricRegistry the registry to report metrics to
+     */
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        engine.setMetricRegistry(metricRegistry);
+        initMetrics(metricRegistry);
+    }
+    
+    private void initMetrics(MetricRegistry registry) {
+        measuring = registry != NoopMetricRegistry.INSTANCE;
+        executeTime = registry.histogram("harmonic.branches.execute.time");
+        updatesSent = registry.counter("harmonic.branches.updates.sent");
+        updatesReceived = registry.counter("harmonic.branches.updates.received");
+        statesSent = registry.counter("harmonic.branches.states.sent");
+        statesReceived = registry.counter("harmonic.branches.states.received");
+        missingSent = registry.histogram("harmonic.branches.sendMissing.states");
+        missingReceived = registry.histogram("harmonic.branches.receiveMissing.states");
+        registry.gauge("harmonic.branches.count", new Gauge() {
+            @Override
+            public long getValue() {
+                return branches.size();
+            }
+        });
+    }
+    
     //listeners
     
     public void addBranchListener(BranchListener l) {
-        branchListeners.add(l);
+        synchronized(branchListeners) {
+            branchListeners.add(l);
+        }
     }
     
     public void removeBranchListener(BranchListener l) {
-        branchListeners.remove(l);
+        synchronized(branchListeners) {
+            branchListeners.remove(l);
+        }
     }
     
     protected void fireBranchCreated(BranchManager mgr, String branch, State head) {
@@ -187,7 +238,7 @@ public class BranchManager {
     
     private MetaState createOrMoveBranch(String branch, MetaState newHead) {
         MetaState[] tip = branches.get(branch);
-        if(tip == null) branches.put(branch, tip = new MetaState[] {newHead});
+        if(tip == null) branches.put(branch, tip = new MetaState[1]);
         MetaState oldHead = tip[0];
         tip[0] = newHead;
         
@@ -209,17 +260,120 @@ public class BranchManager {
     }
     
     public <T extends Action> T execute(T action) {
+        long start = measuring? System.nanoTime():0;
         MetaState[] tip = branches.get(currentBranch);
-        State state = new State(tip[0].state, action);
+        MetaState oldHead = tip[0];
+        State state = new State(oldHead.state, action);
         engine.setHead(state);
         tip[0] = put(state);
+        if(measuring) executeTime.record(System.nanoTime() - start);
+        fireBranchMoved(this, currentBranch, oldHead.state, state);
         return action;
     }
     
+    /**
+     * <p>
+     * Executes the given actions in order as a single {@link CompositeAction}, which results in one new state
+     * instead of one per action. This requires the composite action type to be
+     * {@linkplain CompositeAction#configure(PolybufConfig, Engine) configured}.
+     * </p>
+     * 
+     * @param actions the actions to execute
+     * @return the executed composite action
+     */
+    public CompositeAction executeAll(Action... actions) {
+        return execute(new CompositeAction(engine, actions));
+    }
+    
+    /**
+     * <p>
+     * Replays the states of a branch that are not ancestors of {@code onto} on top of {@code onto}, and moves the
+     * branch to the replayed tip. This is used to reconcile actions executed optimistically on a local branch
+     * with an update of the branch they were based on: the actions are replayed as new states of this
+     * BranchManager's engine, in their original order. Only states created by this BranchManager's engine are
+     * replayed; states of other engines that are not ancestors of {@code onto} are dropped, as they are not this
+     * engine's to issue. If {@code onto} already is an ancestor of the branch's tip, nothing is replayed.
+     * </p>
+     * <p>
+     * The replayed states' actions are not serialized again, and actions that are already decoded are reused
+     * instead of being decoded again when the new states are applied. If the branch is the current branch, the
+     * engine's head is only moved back to the common predecessor of the branch's tip and {@code onto} before
+     * moving forward to the new tip.
+     * </p>
+     * 
+     * @param branch the branch to rebase
+     * @param onto the state to replay the branch's states on
+     * @return the branch's new tip
+     */
+    public State rebase(String branch, State onto) {
+        if(onto.getEngine() != engine) throw new IllegalArgumentException();
+        State tip = getBranchTip(branch);
+        State pred = tip.getCommonPredecessor(onto);
+        if(pred == onto) return tip;
+        
+        //the local states to replay, in order; other engines' states are not replayed, as they would be issued
+        //again under this engine's id
+        int count = 0;
+        for(State state = tip; state != pred; state = state.getParent())
+            if(state.getEngineId() == engine.getId()) count++;
+        State[] replayed = new State[count];
+        for(State state = tip; state != pred; state = state.getParent())
+            if(state.getEngineId() == engine.getId()) replayed[--count] = state;
+        
+        //revert only down to the common predecessor; this caches the reverted actions
+        if(currentBranch.equals(branch)) engine.setHead(pred);
+        
+        State head = onto;
+        for(State state:replayed) {
+            State copy = state.copyTo(head);
+            engine.moveCachedAction(state, copy);
+            head = copy;
+        }
+        
+        createOrMoveBranch(branch, put(head));
+        return head;
+    }
+    
     public Set<String> getBranches() {
         return branchesView.keySet();
     }
     
+    /**
+     * <p>
+     * Removes all states that are not reachable from any branch tip, from the engine's head, or from a
+     * {@linkplain Engine#pinState(State) pinned} state, from both this BranchManager and the underlying engine.
+     * States received from other BranchManagers that are not yet resolved are retained. Note that other
+     * BranchManagers are not informed about removed states; if they send updates referring to them, these states
+     * will be requested again.
+     * </p>
+     * 
+     * @return the number of removed states
+     */
+    public int collectGarbage() {
+        List<State> roots = new ArrayList<>();
+        for(MetaState[] tip:branches.values())
+            roots.add(tip[0].state);
+        
+        List<State> removed = engine.collectGarbage(roots);
+        for(State state:removed)
+            states.remove(state.getId());
+        
+        //replace removed known tips by their most recent remaining ancestor
+        for(Map.Entry<Long, List<MetaState>> entry:knownTips.asMap().entrySet()) {
+            List<MetaState> tips = entry.getValue();
+            MetaState[] oldTips = tips.toArray(new MetaState[tips.size()]);
+            tips.clear();
+            for(MetaState tip:oldTips) {
+                State state = tip.state;
+                while(engine.getState(state.getId()) != state)
+                    state = state.getParent();
+                addKnownTip(entry.getKey().intValue(), states.get(state.getId()));
+            }
+        }
+        
+        return removed.size();
+    }
+    
     //receive branch sync
     
     /**
@@ -243,24 +397,28 @@ public class BranchManager {
      *         is unknown; the {@code state}'s id if the full branch is known
      */
     public void receiveUpdate(int engine, String branch, Obj state, long[] ancestors, SyncCallback callback) {
-        MetaState newHead = deserialize(state);
-        put(newHead);
+        Tracer tracer = this.engine.getTracer();
+        Object span = tracer.beginSync();
+        updatesReceived.increment();
+        MetaState newHead = put(deserialize(state));
         if(newHead.resolve()) {
             //we have all we need
             newHead.addEngine(engine);
             
             createOrMoveBranch(branch, newHead);
+            if(span != null) tracer.endSync(span, "receiveUpdate", engine, branch, 1);
             
         } else {
-            //we need additional states
+            //we need additional states; if we know none of the given ancestors, request all
+            long known = 0l;
             for(long l:ancestors)
                 if(states.containsKey(l)) {
-                    callback.receiveUpdateCallback(this.engine.getId(), branch, l);
-                    return;
+                    known = l;
+                    break;
                 }
             
-            //we know none of the given ancestors
-            callback.receiveUpdateCallback(this.engine.getId(), branch, 0l);
+            if(span != null) tracer.endSync(span, "receiveUpdate", engine, branch, 1);
+            callback.receiveUpdateCallback(this.engine.getId(), branch, known);
         }
     }
     
@@ -273,6 +431,11 @@ public class BranchManager {
      * state of the update must be transmitted again. In addition, a list of states containing the delta between
      * the remote and this BranchManager's branch is transmitted.
      * </p>
+     * <p>
+     * This method expects the complete delta; use
+     * {@link #receiveMissing(int, String, long, Obj[], SyncCallback)} to receive a delta that was
+     * {@linkplain #sendMissing(int, String, long, int, SyncCallback) sent in chunks}.
+     * </p>
      * 
      * @param engine the id of the offering BranchManager's engine
      * @param branch the branch this update belongs to
@@ -280,17 +443,58 @@ public class BranchManager {
      * @param ancestors a list of ancestor states that is missing from the local branch, in chronological order
      */
     public void receiveMissing(int engine, String branch, long state, Obj[] ancestors) {
+        receiveMissing(engine, branch, state, ancestors, null);
+    }
+    
+    /**
+     * <p>
+     * Receives the missing states, or a chunk of them, for a previous
+     * {@link #receiveUpdate(int, String, Obj, long...) receiveUpdate()} call. If the states complete the delta,
+     * the branch is moved to the update's head state, like in
+     * {@link #receiveMissing(int, String, long, Obj[]) receiveMissing()}. Otherwise, the states are the oldest
+     * chunk of the delta: the branch is moved forward to the chunk's most recent state, and that state is
+     * acknowledged through {@link SyncCallback#receiveUpdateCallback(int, String, long)
+     * callback.receiveUpdateCallback()} to request the next chunk.
+     * </p>
+     * 
+     * @param engine the id of the offering BranchManager's engine
+     * @param branch the branch this update belongs to
+     * @param state the id of the state being the tip of this update
+     * @param ancestors a list of ancestor states that is missing from the local branch, in chronological order
+     * @param callback a callback to request further chunks, or {@code null} if the delta must be complete
+     */
+    public void receiveMissing(int engine, String branch, long state, Obj[] ancestors, SyncCallback callback) {
+        Tracer tracer = this.engine.getTracer();
+        Object span = tracer.beginSync();
+        statesReceived.add(ancestors.length);
+        missingReceived.record(ancestors.length);
+        MetaState last = null;
         for(Obj obj:ancestors) {
-            MetaState s = deserialize(obj);
-            put(s);
+            MetaState s = put(deserialize(obj));
             if(!s.resolve()) throw new AssertionError();
+            last = s;
         }
         
+        //the head is unknown if the remote branch moved on after offering it; the sender then offers the new tip
+        //once the acknowledged states reach it
         MetaState newHead = states.get(state);
-        if(!newHead.resolve()) throw new AssertionError();
-        newHead.addEngine(engine);
-        
-        createOrMoveBranch(branch, newHead);
+        if(newHead != null && newHead.resolve()) {
+            newHead.addEngine(engine);
+            createOrMoveBranch(branch, newHead);
+            if(span != null) tracer.endSync(span, "receiveMissing", engine, branch, ancestors.length);
+        } else {
+            //only a chunk was received; if it was empty, acknowledge the branch's known tip instead
+            if(callback == null) throw new AssertionError();
+            if(last != null) {
+                last.addEngine(engine);
+                createOrMoveBranch(branch, last);
+            } else {
+                MetaState[] tip = branches.get(branch);
+                last = tip == null || tip[0] == null? states.get(0l):tip[0];
+            }
+            if(span != null) tracer.endSync(span, "receiveMissing", engine, branch, ancestors.length);
+            callback.receiveUpdateCallback(this.engine.getId(), branch, last.stateId);
+        }
     }
     
     //send branch sync
@@ -314,17 +518,19 @@ public class BranchManager {
         if(engine == 0) {
             state = null;
         } else {
-            state = head[0];
-            Integer id = engine;
-            while(state != null && !state.engines.contains(id))
-                state = state.parent;
+            state = getKnownAncestor(engine, head[0]);
             if(state == head[0]) return;
             
             head[0].addEngine(engine);
         }
         
+        Tracer tracer = this.engine.getTracer();
+        Object span = tracer.beginSync();
         long[] ancestors = state == null? new long[0]:new long[] {state.stateId};
-        callback.sendUpdateCallback(this.engine.getId(), branch, serialize(head[0]), ancestors);
+        Obj obj = serialize(head[0]);
+        updatesSent.increment();
+        if(span != null) tracer.endSync(span, "sendUpdate", engine, branch, 1);
+        callback.sendUpdateCallback(this.engine.getId(), branch, obj, ancestors);
     }
     
     /**
@@ -340,20 +546,73 @@ public class BranchManager {
      * @param callback a callback to provide the data to the caller
      */
     public void sendMissing(int engine, String branch, long ancestor, SyncCallback callback) {
+        sendMissing(engine, branch, ancestor, 0, callback);
+    }
+    
+    /**
+     * <p>
+     * Determines which states are missing at the {@link BranchManager} identified by {@code engine} provided the
+     * known ancestor, and provides at most {@code limit} of them, starting with the oldest, to the caller through
+     * {@link SyncCallback#sendMissingCallback(int, String, long, Obj...) callback.sendMissingCallback()}.
+     * </p>
+     * <p>
+     * If not all missing states fit into the limit, the receiving BranchManager
+     * {@linkplain #receiveMissing(int, String, long, Obj[], SyncCallback) acknowledges} the chunk by reporting its
+     * most recent state as the new known ancestor, which leads to another call of this method for the next chunk.
+     * That way, only one chunk per branch and engine is in flight at a time, and neither side has to hold the
+     * complete delta in memory.
+     * </p>
+     * <p>
+     * If the branch moved in the meantime, so that the acknowledged state is no longer an ancestor of its tip, or
+     * if only the tip is still missing, which the receiver may not have been offered yet, the current tip is
+     * {@linkplain SyncCallback#sendUpdateCallback(int, String, Obj, long...) offered} anew instead.
+     * </p>
+     * 
+     * @param engine the engine which should be updated
+     * @param branch the branch for which updates should be provided
+     * @param ancestor the ancestor the remote branch manager reported it knew
+     * @param limit the maximum number of states to provide, or {@code 0} to provide all missing states
+     * @param callback a callback to provide the data to the caller
+     */
+    public void sendMissing(int engine, String branch, long ancestor, int limit, SyncCallback callback) {
+        if(limit < 0) throw new IllegalArgumentException();
         MetaState[] head = branches.get(branch);
         if(head == null || head[0] == null) throw new IllegalArgumentException();
         
-        head[0].addEngine(engine);
         long headId = head[0].stateId;
-        if(headId == ancestor) return;
+        if(headId == ancestor) {
+            head[0].addEngine(engine);
+            return;
+        }
         
-        LinkedList<Obj> ancestors = new LinkedList<>();
-        for(MetaState state = head[0].parent; state.stateId != ancestor; state = state.parent) {
-            ancestors.addFirst(serialize(state));
+        Tracer tracer = this.engine.getTracer();
+        Object span = tracer.beginSync();
+        State tip = head[0].state, known = this.engine.getState(ancestor);
+        if(known == null || !known.isAncestorOf(tip) || known == tip.getParent()) {
+            //the acknowledged state is no longer on the branch, e.g. after a reset, or only the tip is missing,
+            //which the receiver was not offered if the branch moved on since: offer the current tip instead
+            long[] ancestors = known == null? new long[0]:new long[] {known.getCommonPredecessor(tip).getId()};
+            Obj obj = serialize(head[0]);
+            head[0].addEngine(engine);
+            updatesSent.increment();
+            if(span != null) tracer.endSync(span, "sendUpdate", engine, branch, 1);
+            callback.sendUpdateCallback(this.engine.getId(), branch, obj, ancestors);
+            return;
         }
         
-        callback.sendMissingCallback(this.engine.getId(), branch, headId,
-                ancestors.toArray(new Obj[ancestors.size()]));
+        head[0].addEngine(engine);
+        //the states between the known ancestor and the tip, or the oldest of them if they exceed the limit
+        int count = tip.getDepth() - known.getDepth() - 1;
+        if(limit != 0 && count > limit) count = limit;
+        Obj[] ancestors = new Obj[count];
+        State state = tip.getAncestor(known.getDepth() + count);
+        for(int i = count - 1; i >= 0; i--, state = state.getParent())
+            ancestors[i] = serialize(states.get(state.getId()));
+        
+        statesSent.add(count);
+        missingSent.record(count);
+        if(span != null) tracer.endSync(span, "sendMissing", engine, branch, count);
+        callback.sendMissingCallback(this.engine.getId(), branch, headId, ancestors);
     }
     
     public static interface SyncCallback {
@@ -368,7 +627,8 @@ public class BranchManager {
         /**
          * <p>
          * Reports the data needed to call {@link BranchManager#sendMissing(int, String, long, SyncCallback)
-         * sendMissing()} on the sending BranchManager.
+         * sendMissing()} on the sending BranchManager. This is also used to acknowledge a chunk of missing states
+         * and request the next one.
          * </p>
          */
         public void receiveUpdateCallback(int engine, String branch, long ancestor);
@@ -382,6 +642,75 @@ public class BranchManager {
         public void sendMissingCallback(int engine, String branch, long state, Obj... ancestors);
     }
     
+    //peer knowledge
+    
+    /**
+     * <p>
+     * Forgets which states the given engine knows, e.g. because it left the session. Subsequent updates to an
+     * engine with this id are sent as if it knew none of this BranchManager's states.
+     * </p>
+     * 
+     * @param engine the engine whose knowledge to forget
+     */
+    public void forgetEngine(int engine) {
+        knownTips.remove(engine);
+    }
+    
+    /**
+     * <p>
+     * Returns the most recent ancestor of the given state that is known to the given engine, or {@code null} if
+     * the engine knows no such state. As an engine that knows a state also knows all its ancestors, this is the
+     * most recent of the {@linkplain State#getCommonPredecessor(State) common predecessors} of the state and the
+     * engine's known tips.
+     * </p>
+     * 
+     * @param engine the engine whose knowledge to check
+     * @param state the state whose ancestors to check
+     * @return the most recent ancestor known to the engine, or {@code null}
+     */
+    private MetaState getKnownAncestor(int engine, MetaState state) {
+        if(engine == this.engine.getId()) return state;
+        List<MetaState> tips = knownTips.get(engine);
+        if(tips == null) return null;
+        
+        State result = null;
+        for(MetaState tip:tips) {
+            State pred = state.state.getCommonPredecessor(tip.state);
+            if(result == null || pred.getDepth() > result.getDepth()) result = pred;
+        }
+        return result == null? null:states.get(result.getId());
+    }
+    
+    /**
+     * <p>
+     * Records that the given engine knows the given state, and therefore all of its ancestors. The engine's known
+     * tips are kept minimal: if the state is an ancestor of a known tip, nothing changes; otherwise, it replaces
+     * all known tips that are its ancestors.
+     * </p>
+     * 
+     * @param engine the engine that knows the state
+     * @param state the state known to the engine
+     */
+    private void addKnownTip(int engine, MetaState state) {
+        //an assuption here is that if an engine knows a state, it knows all its parents too
+        //if the state is not resolved, i.e. not attached to its parent, then this assumption could be broken
+        //when it is subsequently resolved, so don't allow that
+        if(!state.resolve()) throw new IllegalStateException();
+        
+        //this engine knows all resolved states
+        if(engine == this.engine.getId()) return;
+        
+        List<MetaState> tips = knownTips.get(engine);
+        if(tips == null) knownTips.put(engine, tips = new ArrayList<>(1));
+        
+        for(ListIterator<MetaState> it = tips.listIterator(); it.hasNext();) {
+            MetaState tip = it.next();
+            if(state.state.isAncestorOf(tip.state)) return;
+            if(tip.state.isAncestorOf(state.state)) it.remove();
+        }
+        tips.add(state);
+    }
+    
     //state mgmt
     
     private MetaState deserialize(Obj state) {
@@ -402,12 +731,36 @@ public class BranchManager {
         }
     }
     
-    private void put(MetaState state) {
-        states.put(state.stateId, state);
+    /**
+     * <p>
+     * Adds a state restored from persistent storage, such as a {@link StateJournal}. The state's parent must
+     * already be known, so states must be restored in the order they were added originally. As with received
+     * states, restoring an already known state has no effect.
+     * </p>
+     * 
+     * @param state the protobuf representation of the restored state
+     */
+    void restoreState(StateP state) {
+        if(!put(new MetaState(state)).resolve()) throw new IllegalArgumentException();
+    }
+    
+    /**
+     * <p>
+     * Adds a received state, unless a state with the same id is already known. States may be received multiple
+     * times, e.g. when they are shared by the updates of several branches.
+     * </p>
+     * 
+     * @param state the received state
+     * @return the state that is now known under the received state's id
+     */
+    private MetaState put(MetaState state) {
+        MetaState result = states.get(state.stateId);
+        if(result == null) states.put(state.stateId, result = state);
+        return result;
     }
     
     private MetaState put(State state) {
-        Long id = state.getId();
+        long id = state.getId();
         MetaState result = states.get(id);
         if(result == null) {
             states.put(id, result = new MetaState(state));
@@ -423,9 +776,6 @@ public class BranchManager {
         private MetaState          parent;
         private State              state;
         
-        //set of engines known to know this meta state
-        private final Set<Integer> engines = new HashSet<>();
-        
         /**
          * <p>
          * Used to add states created by the engine managed by this branch manager.
@@ -443,8 +793,6 @@ public class BranchManager {
             } else {
                 parentId = 0;
             }
-            
-            addEngine(engine.getId());
         }
         
         /**
@@ -457,7 +805,18 @@ public class BranchManager {
          * @param action the action extracted from that protobuf extension
          */
         public MetaState(Obj state) {
-            StateP p = state.getExtension(State.EXTENSION);
+            this(state.getExtension(State.EXTENSION));
+        }
+        
+        /**
+         * <p>
+         * Used to add states restored from persistent storage. {@linkplain #resolve() Resolving} will be necessary
+         * before this MetaState can be used.
+         * </p>
+         * 
+         * @param p the protobuf representation of the state to be added
+         */
+        public MetaState(StateP p) {
             stateId = p.getId();
             parentId = p.getParent();
             this.action = p.getAction();
@@ -486,19 +845,13 @@ public class BranchManager {
             if(parent == null || !parent.resolve()) return false;
             
             state = new State(engine, parent.state, stateId, action);
-            addEngine(engine.getId());
             addEngine(state.getEngineId());
             
             return true;
         }
         
         public void addEngine(int id) {
-            //an assuption here is that if this state has an engine marked, all its parents will have it marked too
-            //if the state is not resolved, i.e. not attached to its parent, then this assumption could be broken
-            //when it is subsequently resolved, so don't allow that
-            if(!resolve()) throw new IllegalStateException();
-            boolean added = engines.add(id);
-            if(added && parent != null) parent.addEngine(id);
+            addKnownTip(id, this);
         }
     }
     
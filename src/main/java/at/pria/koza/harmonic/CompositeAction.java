@@ -0,0 +1,152 @@
+/**
+ * CompositeAction.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import at.pria.koza.harmonic.proto.HarmonicP.CompositeActionP;
+import at.pria.koza.polybuf.PolybufConfig;
+import at.pria.koza.polybuf.PolybufException;
+import at.pria.koza.polybuf.PolybufIO;
+import at.pria.koza.polybuf.PolybufInput;
+import at.pria.koza.polybuf.PolybufOutput;
+import at.pria.koza.polybuf.PolybufSerializable;
+import at.pria.koza.polybuf.proto.Polybuf.Obj;
+
+import com.google.protobuf.GeneratedMessage.GeneratedExtension;
+
+
+/**
+ * <p>
+ * A {@code CompositeAction} applies several actions in order as one action, so that they are committed as a
+ * single {@link State}. Applications that execute many small actions at once, e.g. per tick, can use it to keep
+ * the history shallow and to synchronize fewer states; see {@link BranchManager#executeAll(Action...)}.
+ * </p>
+ * <p>
+ * The composed actions' modifications are added to the composite action, and are reverted together. The
+ * composed actions are serialized as part of the composite action, so their types must be configured as usual;
+ * the composite action's own type must be configured by {@link #configure(PolybufConfig, Engine)}. It uses the
+ * type id {@value #FIELD}, which is therefore reserved if composite actions are used.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class CompositeAction extends Action implements PolybufSerializable {
+    public static final int                                       FIELD     =
+            CompositeActionP.COMPOSITEACTION_FIELD_NUMBER;
+    public static final GeneratedExtension<Obj, CompositeActionP> EXTENSION = CompositeActionP.compositeAction;
+    
+    public static PolybufIO<CompositeAction> getIO(Engine engine) {
+        return new IO(engine);
+    }
+    
+    public static void configure(PolybufConfig config, Engine engine) {
+        config.add(getIO(engine));
+    }
+    
+    private final List<Action> actions;
+    
+    /**
+     * <p>
+     * Creates a composite action of the given actions, which must modify the same engine.
+     * </p>
+     * 
+     * @param engine the engine that is modified by this action
+     * @param actions the actions to apply in order
+     */
+    public CompositeAction(Engine engine, Action... actions) {
+        this(engine, Arrays.asList(actions));
+    }
+    
+    /**
+     * <p>
+     * Creates a composite action of the given actions, which must modify the same engine.
+     * </p>
+     * 
+     * @param engine the engine that is modified by this action
+     * @param actions the actions to apply in order
+     */
+    public CompositeAction(Engine engine, List<? extends Action> actions) {
+        super(engine);
+        for(Action action:actions)
+            if(action.getEngine() != engine) throw new IllegalArgumentException();
+        this.actions = Collections.unmodifiableList(new ArrayList<Action>(actions));
+    }
+    
+    /**
+     * <p>
+     * Returns the actions this action is composed of.
+     * </p>
+     * 
+     * @return the actions this action is composed of, in order
+     */
+    public List<Action> getActions() {
+        return actions;
+    }
+    
+    @Override
+    public int getTypeId() {
+        return FIELD;
+    }
+    
+    @Override
+    protected void apply0() {
+        //the composed actions' modifications are added to this action, which is the active one
+        for(Action action:actions)
+            action.apply0();
+    }
+    
+    @Override
+    protected void reset0() {
+        for(Action action:actions)
+            action.reset();
+    }
+    
+    private static class IO implements PolybufIO<CompositeAction> {
+        private final Engine engine;
+        
+        public IO(Engine engine) {
+            this.engine = engine;
+        }
+        
+        @Override
+        public int getType() {
+            return FIELD;
+        }
+        
+        @Override
+        public GeneratedExtension<Obj, CompositeActionP> getExtension() {
+            return EXTENSION;
+        }
+        
+        @Override
+        public void serialize(PolybufOutput out, CompositeAction object, Obj.Builder obj) throws PolybufException {
+            CompositeActionP.Builder b = CompositeActionP.newBuilder();
+            for(Action action:object.actions)
+                b.addActions(out.writeObject(action));
+            obj.setExtension(EXTENSION, b.build());
+        }
+        
+        @Override
+        public CompositeAction initialize(PolybufInput in, Obj obj) throws PolybufException {
+            CompositeActionP p = obj.getExtension(EXTENSION);
+            Action[] actions = new Action[p.getActionsCount()];
+            for(int i = 0; i < actions.length; i++)
+                actions[i] = (Action) in.readObject(p.getActions(i));
+            
+            return new CompositeAction(engine, actions);
+        }
+        
+        @Override
+        public void deserialize(PolybufInput in, Obj obj, CompositeAction object) throws PolybufException {}
+    }
+}
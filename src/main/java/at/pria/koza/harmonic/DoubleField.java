@@ -0,0 +1,62 @@
+/**
+ * DoubleField.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+/**
+ * <p>
+ * A {@code DoubleField} describes a {@code double} field of an entity class, and records changes to it in the current
+ * {@link Action}'s undo log. See {@link AbstractField} for details.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ * @param <E> the entity class declaring the field
+ */
+public abstract class DoubleField<E extends Entity> extends AbstractField<E> {
+    /**
+     * <p>
+     * Returns the value of this field in the given entity.
+     * </p>
+     * 
+     * @param entity the entity whose field to read
+     * @return the field's value
+     */
+    public abstract double get(E entity);
+    
+    /**
+     * <p>
+     * Writes the value of this field in the given entity, without recording the change. This is called by
+     * {@link #set(Entity, double) set()} and when reverting a change.
+     * </p>
+     * 
+     * @param entity the entity whose field to write
+     * @param value the field's new value
+     */
+    protected abstract void put(E entity, double value);
+    
+    /**
+     * <p>
+     * Sets the value of this field in the given entity, and records the change in the current action.
+     * </p>
+     * 
+     * @param entity the entity whose field to set
+     * @param value the field's new value
+     */
+    public final void set(E entity, double value) {
+        double old = get(entity);
+        //compare bits, so that e.g. NaN and -0.0 are handled correctly
+        if(Double.doubleToRawLongBits(old) == Double.doubleToRawLongBits(value)) return;
+        Action.get().addFieldChange(this, entity, Double.doubleToRawLongBits(old), null);
+        put(entity, value);
+    }
+    
+    @Override
+    final void revert0(E entity, long bits, Object ref) {
+        put(entity, Double.longBitsToDouble(bits));
+    }
+}
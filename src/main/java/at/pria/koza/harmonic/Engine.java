@@ -8,17 +8,28 @@ package at.pria.koza.harmonic;
 
 
 import static java.lang.String.*;
-import static java.util.Collections.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
+import at.pria.koza.harmonic.metrics.MetricRegistry;
+import at.pria.koza.harmonic.metrics.NoopMetricRegistry;
+import at.pria.koza.harmonic.trace.NoopTracer;
+import at.pria.koza.harmonic.trace.Tracer;
 import at.pria.koza.polybuf.PolybufConfig;
 
 
@@ -27,11 +38,22 @@ import at.pria.koza.polybuf.PolybufConfig;
  * The class {@code Engine} represents a graph of objects that describes the application. The Engine's State is
  * modified by Actions.
  * </p>
+ * <p>
+ * Moving the head normally reverts all states down to the common predecessor of the old and new head, and then
+ * applies all states up to the new head. To keep that bounded for deep histories, the engine can take
+ * {@linkplain #setCheckpointInterval(int) checkpoints} of its entities every few states. When reaching the new
+ * head from a checkpoint is cheaper, the entities are restored from that checkpoint and only the remaining states
+ * are applied. As restoring a checkpoint replaces all entities with deserialized copies, entities must be
+ * {@link java.io.Serializable serializable} when checkpoints are enabled, and references to entities should not
+ * be held across head moves; resolve them by {@linkplain #getEntity(int) id} instead.
+ * </p>
  * 
  * @version V1.0 26.07.2013
  * @author SillyFreak
  */
 public class Engine {
+    public static final int            DEFAULT_ACTION_CACHE_SIZE = 0;
+    
     private static Random random;
     
     private static Random getRandom() {
@@ -47,18 +69,27 @@ public class Engine {
     }
     
     private int                        id;
-    private final Map<Integer, Entity> entities       = new HashMap<>();
-    private final Map<Integer, Entity> entitiesView   = unmodifiableMap(entities);
-    private final Map<Long, State>     states         = new HashMap<>();
-    private final Map<Long, State>     statesView     = unmodifiableMap(states);
+    private final EntityRegistry       entities       = new EntityRegistry();
+    private final LongMap<State>       states         = new LongMap<>();
+    private final Set<State>           pinnedStates   = new HashSet<>();
     private final PolybufConfig        config         = new PolybufConfig();
     private final List<StateListener>  stateListeners = new ArrayList<>();
     private final List<HeadListener>   headListeners  = new ArrayList<>();
+    private final ActionCache          actionCache    = new ActionCache(DEFAULT_ACTION_CACHE_SIZE);
     
     private long                       nextStateId;
-    private int                        nextEntityId   = 0;
+    private int                        checkpointInterval;
+    private ForkJoinPool               decodingPool;
+    private int                        lookAhead;
+    
+    private MetricRegistry             metricRegistry;
+    EngineMetrics                      metrics;
+    private Tracer                     tracer         = NoopTracer.INSTANCE;
     
     private State                      head;
+    //the state the entities were last restored from; states up to it can't be reverted
+    private State                      base;
+    private volatile EngineView        view;
     
     /**
      * <p>
@@ -90,7 +121,10 @@ public class Engine {
     public Engine(int id) {
         this.id = id;
         nextStateId = (id & 0xFFFFFFFFl) << 32;
-        head = new State(this);
+        setMetricRegistry(NoopMetricRegistry.INSTANCE);
+        head = base = new State(this);
+        head.checkpoint = new Checkpoint(this);
+        view = new EngineView(head, head.checkpoint);
     }
     
     public PolybufConfig getConfig() {
@@ -98,19 +132,146 @@ public class Engine {
     }
     
     public void addStateListener(StateListener l) {
-        stateListeners.add(l);
+        synchronized(stateListeners) {
+            stateListeners.add(l);
+        }
     }
     
     public void removeStateListener(StateListener l) {
-        stateListeners.remove(l);
+        synchronized(stateListeners) {
+            stateListeners.remove(l);
+        }
     }
     
     public void addHeadListener(HeadListener l) {
-        headListeners.add(l);
+        synchronized(headListeners) {
+            headListeners.add(l);
+        }
     }
     
     public void removeHeadListener(HeadListener l) {
-        headListeners.remove(l);
+        synchronized(headListeners) {
+            headListeners.remove(l);
+        }
+    }
+    
+    /**
+     * <p>
+     * Returns the registry this engine reports metrics to.
+     * </p>
+     * 
+     * @return the registry this engine reports metrics to
+     */
+    public MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+    
+    /**
+     * <p>
+     * Sets the registry this engine reports metrics to, such as the time spent reverting and applying states when
+     * moving the head, the number of states reverted and applied, and checkpoint and action cache usage. By
+     * default, the {@linkplain NoopMetricRegistry no-op registry} is used, for which no time is measured.
+     * </p>
+     * 
+     * @param metricRegistry the registry to report metrics to
+     */
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        if(metricRegistry == null) throw new IllegalArgumentException();
+        this.metricRegistry = metricRegistry;
+        metrics = new EngineMetrics(this, metricRegistry);
+    }
+    
+    /**
+     * <p>
+     * Returns the pool on which actions are decoded ahead of applying them, or {@code null} if actions are
+     * decoded on the thread moving the head.
+     * </p>
+     * 
+     * @return the pool on which actions are decoded ahead of applying them
+     */
+    public ForkJoinPool getDecodingPool() {
+        return decodingPool;
+    }
+    
+    /**
+     * <p>
+     * Returns the maximum number of actions decoded ahead of the state being applied.
+     * </p>
+     * 
+     * @return the maximum number of actions decoded ahead of the state being applied
+     */
+    public int getLookAhead() {
+        return lookAhead;
+    }
+    
+    /**
+     * <p>
+     * Sets the pool on which actions are decoded ahead of applying them. When the head moves forward by more than
+     * one state, the actions of up to {@code lookAhead} following states are decoded in parallel on the pool
+     * while the states are applied in order on the thread moving the head. States whose actions are cached are
+     * not decoded again. By default, no pool is used, and each action is decoded right before it is applied.
+     * </p>
+     * <p>
+     * Decoding on the pool requires the polybuf IOs of all action types to be thread safe, and their actions'
+     * deserialization to not depend on the engine's entities, which are modified concurrently.
+     * </p>
+     * 
+     * @param decodingPool the pool to decode actions on, or {@code null} to decode on the thread moving the head
+     * @param lookAhead the maximum number of actions decoded ahead of the state being applied
+     */
+    public void setDecodingPool(ForkJoinPool decodingPool, int lookAhead) {
+        if(decodingPool != null && lookAhead <= 0) throw new IllegalArgumentException();
+        this.decodingPool = decodingPool;
+        this.lookAhead = lookAhead;
+    }
+    
+    /**
+     * <p>
+     * Returns the tracer this engine, its states, and the components using it report operations to.
+     * </p>
+     * 
+     * @return the tracer to report operations to
+     */
+    public Tracer getTracer() {
+        return tracer;
+    }
+    
+    /**
+     * <p>
+     * Sets the tracer this engine, its states, and the components using it report operations to. By default, the
+     * {@linkplain NoopTracer no-op tracer} is used.
+     * </p>
+     * 
+     * @param tracer the tracer to report operations to
+     */
+    public void setTracer(Tracer tracer) {
+        if(tracer == null) throw new IllegalArgumentException();
+        this.tracer = tracer;
+    }
+    
+    /**
+     * <p>
+     * Returns the number of states between two checkpoints. Zero means that no checkpoints are taken.
+     * </p>
+     * 
+     * @return the number of states between two checkpoints
+     */
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+    
+    /**
+     * <p>
+     * Sets the number of states between two checkpoints. Whenever a state whose {@linkplain State#getDepth()
+     * depth} is a multiple of the interval is applied, a checkpoint of all entities is taken. Zero disables
+     * taking new checkpoints; existing checkpoints are retained.
+     * </p>
+     * 
+     * @param checkpointInterval the number of states between two checkpoints
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        if(checkpointInterval < 0) throw new IllegalArgumentException();
+        this.checkpointInterval = checkpointInterval;
     }
     
     protected void fireStateAdded(State state) {
@@ -121,6 +282,16 @@ public class Engine {
         }
     }
     
+    protected void fireStateRemoved(State state) {
+        synchronized(stateListeners) {
+            for(ListIterator<StateListener> it = stateListeners.listIterator(stateListeners.size());
+                    it.hasPrevious();) {
+                StateListener l = it.previous();
+                if(l instanceof StateRemovalListener) ((StateRemovalListener) l).stateRemoved(state);
+            }
+        }
+    }
+    
     protected void fireHeadMoved(State prevHead, State newHead) {
         synchronized(headListeners) {
             for(ListIterator<HeadListener> it = headListeners.listIterator(headListeners.size()); it.hasPrevious();) {
@@ -168,26 +339,219 @@ public class Engine {
     public void setHead(State head) {
         if(head == null) throw new IllegalArgumentException();
         
+        EngineMetrics metrics = this.metrics;
+        long start = metrics.measuring? System.nanoTime():0;
+        Object span = tracer.beginHeadMove();
+        
         //common predecessor
         State pred = this.head.getCommonPredecessor(head);
         
-        //roll back to pred
-        for(State current = this.head; current != pred; current = current.getParent())
-            current.revert();
+        int reverted = 0;
+        State checkpoint = findCheckpoint(head, pred);
+        if(checkpoint != null) {
+            //restore the checkpoint instead of rolling back
+            restore(checkpoint);
+            pred = checkpoint;
+            metrics.checkpointsRestored.increment();
+        } else {
+            //roll back to pred
+            for(State current = this.head; current != pred; current = current.getParent(), reverted++)
+                current.revert();
+        }
+        
+        long reverting = metrics.measuring? System.nanoTime():0;
         
         //move forward to new head
-        Deque<State> states = new LinkedList<>();
+        State[] states = new State[head.getDepth() - pred.getDepth()];
         for(State current = head; current != pred; current = current.getParent())
-            states.addFirst(current);
-        for(State current:states)
-            current.apply();
+            states[current.getDepth() - pred.getDepth() - 1] = current;
+        if(decodingPool != null && states.length > 1) {
+            applyDecodingAhead(states);
+        } else {
+            for(State current:states) {
+                current.apply(null);
+                afterApply(current);
+            }
+        }
+        
+        if(metrics.measuring) {
+            metrics.revertTime.record(reverting - start);
+            metrics.applyTime.record(System.nanoTime() - reverting);
+        }
+        metrics.revertStates.record(reverted);
+        metrics.applyStates.record(states.length);
         
         //set new head
         State old = this.head;
         this.head = head;
+        if(span != null) tracer.endHeadMove(span, old, head, reverted, states.length, checkpoint != null);
         fireHeadMoved(old, head);
     }
     
+    /**
+     * <p>
+     * Returns the maximum number of decoded actions of reverted states that this engine keeps for reuse.
+     * </p>
+     * 
+     * @return the maximum number of cached actions
+     */
+    public int getActionCacheSize() {
+        return actionCache.getCapacity();
+    }
+    
+    /**
+     * <p>
+     * Sets the maximum number of decoded actions of reverted states that this engine keeps for reuse. When a
+     * state is applied again, e.g. when switching back and forth between branches, a cached action is
+     * {@linkplain Action#reset0() reset} and applied instead of deserializing the state's action again. Zero
+     * disables the cache, which is the default.
+     * </p>
+     * <p>
+     * Only enable the cache if all actions executed by this engine support reuse, i.e. any action that keeps
+     * state beyond its serialized form between {@link Action#apply0() apply0()} and {@link Action#revert()
+     * revert()} overrides {@link Action#reset0() reset0()} to restore it. Otherwise, reused actions may behave
+     * differently from freshly decoded ones.
+     * </p>
+     * 
+     * @param size the maximum number of cached actions
+     */
+    public void setActionCacheSize(int size) {
+        actionCache.setCapacity(size);
+    }
+    
+    /**
+     * <p>
+     * Removes and returns the cached action for the given state, if there is one.
+     * </p>
+     * 
+     * @param state the state whose action to return
+     * @return the cached action, or {@code null}
+     */
+    Action takeCachedAction(State state) {
+        Action action = actionCache.remove(state);
+        if(action == null) metrics.cacheMisses.increment();
+        else metrics.cacheHits.increment();
+        return action;
+    }
+    
+    /**
+     * <p>
+     * {@linkplain Action#reset() Resets} the given action and caches it for the given state, which was just
+     * reverted.
+     * </p>
+     * 
+     * @param state the state to which the action belongs
+     * @param action the state's action
+     */
+    void cacheAction(State state, Action action) {
+        if(actionCache.getCapacity() == 0) return;
+        action.reset();
+        actionCache.put(state, action);
+    }
+    
+    /**
+     * <p>
+     * Moves the cached action of a state, if any, to another state with the same action, so that it doesn't need
+     * to be decoded for that state.
+     * </p>
+     * 
+     * @param from the state whose action may be cached
+     * @param to the state to cache the action for instead
+     */
+    void moveCachedAction(State from, State to) {
+        Action action = actionCache.remove(from);
+        if(action != null) actionCache.put(to, action);
+    }
+    
+    //takes a checkpoint if necessary
+    private void afterApply(State current) {
+        if(checkpointInterval != 0 && current.checkpoint == null && current.getDepth() % checkpointInterval == 0) {
+            current.checkpoint = new Checkpoint(this);
+            metrics.checkpointsTaken.increment();
+        }
+    }
+    
+    /**
+     * <p>
+     * Applies the given states in order, while up to {@link #lookAhead} of the following states' actions are
+     * decoded on the decoding pool. Cached actions are taken on this thread, as the cache is not thread safe.
+     * </p>
+     * 
+     * @param states the states to apply
+     */
+    private void applyDecodingAhead(State[] states) {
+        int window = Math.min(lookAhead, states.length);
+        //ring buffers of the actions and decoding tasks of the states in the window
+        Action[] actions = new Action[window];
+        Decode[] tasks = new Decode[window];
+        int scheduled = 0;
+        try {
+            for(int i = 0; i < states.length; i++) {
+                for(; scheduled < states.length && scheduled < i + window; scheduled++) {
+                    int slot = scheduled % window;
+                    Action action = takeCachedAction(states[scheduled]);
+                    if(action != null) actions[slot] = action;
+                    else decodingPool.execute(tasks[slot] = new Decode(states[scheduled]));
+                }
+                
+                int slot = i % window;
+                Action action = actions[slot];
+                if(action == null) action = tasks[slot].join();
+                actions[slot] = null;
+                tasks[slot] = null;
+                
+                states[i].apply(action);
+                afterApply(states[i]);
+            }
+        } finally {
+            //if applying failed, the remaining decoded actions are discarded
+            for(Decode task:tasks)
+                if(task != null) task.cancel(false);
+        }
+    }
+    
+    /**
+     * <p>
+     * Returns the checkpoint from which to move forward to {@code head}, or {@code null} if the engine should roll
+     * back to {@code pred} instead. A checkpoint is used if rolling back is not possible because {@code pred} was
+     * not applied by this engine but restored from a checkpoint, or if the checkpoint saves at least one
+     * checkpoint interval of states to revert and apply.
+     * </p>
+     * 
+     * @param head the engine's new head state
+     * @param pred the common predecessor of the current and new head
+     * @return the nearest checkpointed ancestor of {@code head} to restore, or {@code null}
+     */
+    private State findCheckpoint(State head, State pred) {
+        boolean required = pred.getDepth() < base.getDepth();
+        if(!required && checkpointInterval == 0) return null;
+        
+        int reverted = this.head.getDepth() - pred.getDepth();
+        for(State current = head;; current = current.getParent()) {
+            if(current.checkpoint != null) {
+                if(required) return current;
+                int saved = reverted + current.getDepth() - pred.getDepth();
+                return saved >= checkpointInterval? current:null;
+            }
+            if(current == pred && !required) return null;
+        }
+    }
+    
+    /**
+     * <p>
+     * Restores the entities from the given state's checkpoint. The actions of all states applied since the last
+     * restore are discarded, as their modifications refer to the replaced entities.
+     * </p>
+     * 
+     * @param checkpoint the state whose checkpoint to restore
+     */
+    private void restore(State checkpoint) {
+        for(State current = this.head; current != base; current = current.getParent())
+            current.discard();
+        checkpoint.checkpoint.restore();
+        base = checkpoint;
+    }
+    
     /**
      * <p>
      * Returns this engine's head state.
@@ -199,6 +563,45 @@ public class Engine {
         return head;
     }
     
+    /**
+     * <p>
+     * Publishes a {@linkplain EngineView view} of the entities at the most recent
+     * {@linkplain #setCheckpointInterval(int) checkpoint} on the way to the current head, which is then returned by
+     * {@link #getView()} until the next call to this method. This must be called from the thread that moves the
+     * head, e.g. from a {@link HeadListener} or once per frame, but doesn't block threads reading older views.
+     * </p>
+     * <p>
+     * Views are snapshots that reuse the checkpoints, so publishing never serializes entities; it only walks back
+     * from the head to the nearest checkpointed state, i.e. over less than one checkpoint interval of states. In
+     * turn, the view lags behind the head by up to that many states, and shows the root state if checkpoints are
+     * disabled. Use {@link EngineView#getState()} to find out which state a view shows.
+     * </p>
+     * 
+     * @return the published view
+     */
+    public EngineView publish() {
+        State state = head;
+        //the root always has a checkpoint
+        while(state.checkpoint == null)
+            state = state.getParent();
+        
+        EngineView view = this.view;
+        if(view.getState() == state) return view;
+        return this.view = new EngineView(state, state.checkpoint);
+    }
+    
+    /**
+     * <p>
+     * Returns the view last {@linkplain #publish() published}, or a view of the root state if no view was
+     * published yet. This method may be called from any thread, and never blocks.
+     * </p>
+     * 
+     * @return the view last published
+     */
+    public EngineView getView() {
+        return view;
+    }
+    
     /**
      * <p>
      * Adds an entity to this engine, assigning it a unique id.
@@ -222,24 +625,61 @@ public class Engine {
         return entities.get(id);
     }
     
+    /**
+     * <p>
+     * Returns the number of entities in this engine. As entity IDs are assigned sequentially, the entities' IDs
+     * range from zero to one less than this number, so all entities can be iterated by {@linkplain #getEntity(int)
+     * ID} without allocating.
+     * </p>
+     * 
+     * @return the number of entities in this engine
+     */
+    public int getEntityCount() {
+        return entities.size();
+    }
+    
+    /**
+     * <p>
+     * Returns a read-only map view of the entities in this engine. Prefer {@link #getEntity(int)} and
+     * {@link #getEntityCount()}, as the view boxes keys.
+     * </p>
+     * 
+     * @return a read-only map view of this engine's entities
+     */
     public Map<Integer, Entity> getEntities() {
-        return entitiesView;
+        return entities.asMap();
     }
     
     /**
      * <p>
-     * Adds a state to this engine.
+     * Adds a state to this engine. If the state was created by this engine, e.g. in a previous run whose states
+     * were restored, state ids generated afterwards will be greater than the state's id.
      * </p>
      * 
      * @param state the state to be added
      */
     void putState(State state) {
-        Long id = state.getId();
+        long id = state.getId();
         if(states.containsKey(id)) throw new IllegalStateException();
         states.put(id, state);
+        //states restored from persistent storage may have been created by this engine; don't reuse their ids
+        reserveStateId(id);
         fireStateAdded(state);
     }
     
+    /**
+     * <p>
+     * Makes sure that state ids generated afterwards are greater than the given id, if it was generated by this
+     * engine. This is necessary for states of a previous run that are not restored, e.g. because they were
+     * garbage collected, as other engines may still know them by their ids.
+     * </p>
+     * 
+     * @param id the id of a state that was created by some engine
+     */
+    void reserveStateId(long id) {
+        if(id >>> 32 == (this.id & 0xFFFFFFFFl) && id >= nextStateId) nextStateId = id + 1;
+    }
+    
     /**
      * <p>
      * Returns the state associated with the given ID.
@@ -252,8 +692,80 @@ public class Engine {
         return states.get(id);
     }
     
+    /**
+     * <p>
+     * Returns a read-only map view of the states in this engine. Prefer {@link #getState(long)} for lookups, as
+     * the view boxes keys.
+     * </p>
+     * 
+     * @return a read-only map view of this engine's states
+     */
     public Map<Long, State> getStates() {
-        return statesView;
+        return states.asMap();
+    }
+    
+    /**
+     * <p>
+     * Pins the given state, so that it and its ancestors are not removed by
+     * {@linkplain BranchManager#collectGarbage() garbage collection}.
+     * </p>
+     * 
+     * @param state the state to pin
+     */
+    public void pinState(State state) {
+        if(state.getEngine() != this) throw new IllegalArgumentException();
+        pinnedStates.add(state);
+    }
+    
+    /**
+     * <p>
+     * Unpins the given state, so that it may be removed by {@linkplain BranchManager#collectGarbage() garbage
+     * collection} if it is not otherwise reachable.
+     * </p>
+     * 
+     * @param state the state to unpin
+     */
+    public void unpinState(State state) {
+        pinnedStates.remove(state);
+    }
+    
+    /**
+     * <p>
+     * Removes all states that are not reachable from this engine's head, a {@linkplain #pinState(State) pinned}
+     * state, or one of the given additional roots, i.e. that are not an ancestor of one of them. Listeners are
+     * notified of every removed state. This is only called by the {@link BranchManager}, which passes its branch
+     * tips as roots.
+     * </p>
+     * 
+     * @param roots additional states whose ancestors must not be removed
+     * @return the removed states
+     */
+    List<State> collectGarbage(Collection<State> roots) {
+        //mark
+        Set<State> reachable = new HashSet<>();
+        mark(reachable, head);
+        for(State state:pinnedStates)
+            mark(reachable, state);
+        for(State state:roots)
+            mark(reachable, state);
+        
+        //sweep
+        List<State> removed = new ArrayList<>();
+        for(State state:states.asMap().values())
+            if(!reachable.contains(state)) removed.add(state);
+        for(State state:removed) {
+            states.remove(state.getId());
+            actionCache.remove(state);
+        }
+        
+        for(State state:removed)
+            fireStateRemoved(state);
+        return removed;
+    }
+    
+    private static void mark(Set<State> reachable, State state) {
+        //stop at the first already reachable state, as its ancestors were marked then
+        for(; state != null && reachable.add(state); state = state.getParent()) {}
     }
     
     @Override
@@ -261,6 +773,70 @@ public class Engine {
         return format("%s@%08X", getClass().getSimpleName(), id);
     }
     
+    /**
+     * <p>
+     * A {@code Checkpoint} is a serialized snapshot of an engine's entities, taken after applying some state. It
+     * is stored in that {@link State} and allows to reach the state's descendants without reverting to a common
+     * predecessor.
+     * </p>
+     */
+    static final class Checkpoint {
+        private final Engine engine;
+        private final byte[] data;
+        
+        public Checkpoint(Engine engine) {
+            this.engine = engine;
+            
+            Entity[] entities = engine.entities.toArray();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(entities);
+            } catch(IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            data = bytes.toByteArray();
+        }
+        
+        /**
+         * <p>
+         * Returns new copies of the snapshot's entities, which are not registered in the engine.
+         * </p>
+         * 
+         * @return new copies of the snapshot's entities
+         */
+        public Entity[] read() {
+            try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+                return (Entity[]) in.readObject();
+            } catch(IOException | ClassNotFoundException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        
+        public void restore() {
+            Entity[] entities = read();
+            engine.entities.clear();
+            for(Entity entity:entities) {
+                entity.setEngine(engine, entity.getId());
+                engine.entities.add(entity);
+            }
+        }
+    }
+    
+    private static final class Decode extends RecursiveTask<Action> {
+        private static final long serialVersionUID = 1L;
+        
+        private final State       state;
+        
+        public Decode(State state) {
+            this.state = state;
+        }
+        
+        @Override
+        protected Action compute() {
+            return state.decode();
+        }
+    }
+    
     private static class RegisterEntity extends Modification {
         private final Engine engine;
         private final Entity entity;
@@ -272,16 +848,15 @@ public class Engine {
         
         @Override
         protected void apply0() {
-            int id = engine.nextEntityId++;
-            entity.setEngine(engine, id);
-            engine.entities.put(id, entity);
+            entity.setEngine(engine, engine.entities.size());
+            engine.entities.add(entity);
         }
         
         @Override
         public void revert() {
-            engine.entities.remove(entity.getId());
+            Entity removed = engine.entities.removeLast();
+            assert removed == entity;
             entity.setEngine(null, -1);
-            engine.nextEntityId--;
         }
     }
 }
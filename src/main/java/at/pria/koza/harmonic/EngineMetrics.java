@@ -0,0 +1,67 @@
+/**
+ * EngineMetrics.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import at.pria.koza.harmonic.metrics.Counter;
+import at.pria.koza.harmonic.metrics.Gauge;
+import at.pria.koza.harmonic.metrics.Histogram;
+import at.pria.koza.harmonic.metrics.MetricRegistry;
+import at.pria.koza.harmonic.metrics.NoopMetricRegistry;
+
+
+/**
+ * <p>
+ * The class {@code EngineMetrics} holds the metrics an {@link Engine} and its {@link State States} report to,
+ * looked up from a {@link MetricRegistry}.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+final class EngineMetrics {
+    //whether durations are measured; not for the no-op registry, to avoid the clock reads
+    final boolean   measuring;
+    
+    final Histogram revertTime, applyTime, decodeTime;
+    final Histogram revertStates, applyStates;
+    final Counter   checkpointsTaken, checkpointsRestored;
+    final Counter   cacheHits, cacheMisses;
+    
+    public EngineMetrics(final Engine engine, MetricRegistry registry) {
+        measuring = registry != NoopMetricRegistry.INSTANCE;
+        
+        revertTime = registry.histogram("harmonic.engine.setHead.revert.time");
+        applyTime = registry.histogram("harmonic.engine.setHead.apply.time");
+        decodeTime = registry.histogram("harmonic.state.decode.time");
+        revertStates = registry.histogram("harmonic.engine.setHead.revert.states");
+        applyStates = registry.histogram("harmonic.engine.setHead.apply.states");
+        checkpointsTaken = registry.counter("harmonic.engine.checkpoints.taken");
+        checkpointsRestored = registry.counter("harmonic.engine.checkpoints.restored");
+        cacheHits = registry.counter("harmonic.engine.actionCache.hits");
+        cacheMisses = registry.counter("harmonic.engine.actionCache.misses");
+        
+        registry.gauge("harmonic.engine.states", new Gauge() {
+            @Override
+            public long getValue() {
+                return engine.getStates().size();
+            }
+        });
+        registry.gauge("harmonic.engine.entities", new Gauge() {
+            @Override
+            public long getValue() {
+                return engine.getEntityCount();
+            }
+        });
+        registry.gauge("harmonic.engine.head.depth", new Gauge() {
+            @Override
+            public long getValue() {
+                return engine.getHead().getDepth();
+            }
+        });
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * EngineView.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import static java.lang.String.*;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import at.pria.koza.harmonic.Engine.Checkpoint;
+
+
+/**
+ * <p>
+ * An {@code EngineView} is a consistent snapshot of an engine's entities at a
+ * {@linkplain Engine#publish() published} state. While the engine's own entities are modified in place whenever
+ * the head moves, a view's entities are copies, so other threads, e.g. for rendering or AI, can read them without
+ * locking while the engine moves on.
+ * </p>
+ * <p>
+ * Views are not versioned or copy-on-write: a view is the {@linkplain Engine#setCheckpointInterval(int)
+ * checkpoint} of its state, i.e. all entities serialized. Publishing a view therefore costs nothing on the
+ * engine's thread, but only checkpointed states can be published. The first access to a view's entities
+ * deserializes all of them, on the first reading thread instead of the engine's thread.
+ * </p>
+ * <p>
+ * The deserialized copies are then shared by all readers of the view. They are ordinary entities, which are not
+ * protected against modification; readers must not modify them. The copies are not registered in the engine,
+ * i.e. their {@link Entity#getEngine() engine} is {@code null}, so methods that need the engine can't be used on
+ * them; other entities are resolved by their {@linkplain Entity#getId() ids}, which are the same as the
+ * originals', through {@link #getEntity(int)} instead.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public final class EngineView {
+    private final State       state;
+    private final Checkpoint  checkpoint;
+    private volatile Entity[] entities;
+    
+    EngineView(State state, Checkpoint checkpoint) {
+        this.state = state;
+        this.checkpoint = checkpoint;
+    }
+    
+    private Entity[] entities() {
+        Entity[] entities = this.entities;
+        if(entities == null) {
+            synchronized(this) {
+                entities = this.entities;
+                if(entities == null) this.entities = entities = checkpoint.read();
+            }
+        }
+        return entities;
+    }
+    
+    /**
+     * <p>
+     * Returns the state this view shows the entities at, i.e. the engine's head or the most recent checkpointed
+     * state before it when the view was published.
+     * </p>
+     * 
+     * @return the state this view shows the entities at
+     */
+    public State getState() {
+        return state;
+    }
+    
+    /**
+     * <p>
+     * Returns the copy of the entity associated with the given ID.
+     * </p>
+     * 
+     * @param id the ID to resolve
+     * @return the copy of the entity that is associated with the ID, or {@code null}
+     */
+    public Entity getEntity(int id) {
+        Entity[] entities = entities();
+        return id >= 0 && id < entities.length? entities[id]:null;
+    }
+    
+    /**
+     * <p>
+     * Returns the number of entities in this view.
+     * </p>
+     * 
+     * @return the number of entities in this view
+     * @see Engine#getEntityCount()
+     */
+    public int getEntityCount() {
+        return entities().length;
+    }
+    
+    /**
+     * <p>
+     * Returns a read-only list of the entity copies in this view, indexed by ID.
+     * </p>
+     * 
+     * @return a read-only list of this view's entities
+     */
+    public List<Entity> getEntities() {
+        final Entity[] entities = entities();
+        return new AbstractList<Entity>() {
+            @Override
+            public Entity get(int index) {
+                return entities[index];
+            }
+            
+            @Override
+            public int size() {
+                return entities.length;
+            }
+        };
+    }
+    
+    @Override
+    public String toString() {
+        return format("%s@%016X", getClass().getSimpleName(), state.getId());
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * EntityRegistry.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * <p>
+ * The class {@code EntityRegistry} holds the {@link Entity Entities} of an {@link Engine}. As entity IDs are
+ * assigned sequentially and only the most recently registered entity is ever unregistered again, the registry is
+ * a growable array indexed by entity ID. A read-only {@link Map} view is only created for callers that
+ * {@linkplain #asMap() ask for one}.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+class EntityRegistry {
+    private static final int     MIN_CAPACITY = 16;
+    
+    private Entity[]             entities     = new Entity[MIN_CAPACITY];
+    private int                  size;
+    private Map<Integer, Entity> view;
+    
+    /**
+     * <p>
+     * Returns the number of registered entities. This is also the ID that the next registered entity will get.
+     * </p>
+     * 
+     * @return the number of registered entities
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * <p>
+     * Returns the entity with the given ID.
+     * </p>
+     * 
+     * @param id the ID to resolve
+     * @return the entity with the given ID, or {@code null}
+     */
+    public Entity get(int id) {
+        return id >= 0 && id < size? entities[id]:null;
+    }
+    
+    /**
+     * <p>
+     * Registers an entity under the next ID, which is equal to the {@linkplain #size() size} before the call.
+     * </p>
+     * 
+     * @param entity the entity to register
+     */
+    public void add(Entity entity) {
+        if(size == entities.length) entities = Arrays.copyOf(entities, size << 1);
+        entities[size++] = entity;
+    }
+    
+    /**
+     * <p>
+     * Unregisters the most recently registered entity.
+     * </p>
+     * 
+     * @return the unregistered entity
+     */
+    public Entity removeLast() {
+        if(size == 0) throw new IllegalStateException();
+        Entity result = entities[--size];
+        entities[size] = null;
+        return result;
+    }
+    
+    /**
+     * <p>
+     * Unregisters all entities.
+     * </p>
+     */
+    public void clear() {
+        Arrays.fill(entities, 0, size, null);
+        size = 0;
+    }
+    
+    /**
+     * <p>
+     * Returns an array of all registered entities, indexed by ID.
+     * </p>
+     * 
+     * @return an array of all registered entities
+     */
+    public Entity[] toArray() {
+        return Arrays.copyOf(entities, size);
+    }
+    
+    /**
+     * <p>
+     * Returns a read-only {@link Map} view of this registry.
+     * </p>
+     * 
+     * @return a read-only view of this registry
+     */
+    public Map<Integer, Entity> asMap() {
+        if(view == null) view = new View();
+        return view;
+    }
+    
+    private class View extends AbstractMap<Integer, Entity> {
+        private Set<Map.Entry<Integer, Entity>> entrySet;
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+        
+        @Override
+        public Entity get(Object key) {
+            return key instanceof Integer? EntityRegistry.this.get((Integer) key):null;
+        }
+        
+        @Override
+        public Set<Map.Entry<Integer, Entity>> entrySet() {
+            if(entrySet == null) entrySet = new AbstractSet<Map.Entry<Integer, Entity>>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+                
+                @Override
+                public Iterator<Map.Entry<Integer, Entity>> iterator() {
+                    return new EntryIterator();
+                }
+            };
+            return entrySet;
+        }
+    }
+    
+    private class EntryIterator implements Iterator<Map.Entry<Integer, Entity>> {
+        private int next;
+        
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+        
+        @Override
+        public Map.Entry<Integer, Entity> next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            int id = next++;
+            return new AbstractMap.SimpleImmutableEntry<>(id, entities[id]);
+        }
+        
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * LongField.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+/**
+ * <p>
+ * A {@code LongField} describes a {@code long} field of an entity class, and records changes to it in the current
+ * {@link Action}'s undo log. See {@link AbstractField} for details.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ * @param <E> the entity class declaring the field
+ */
+public abstract class LongField<E extends Entity> extends AbstractField<E> {
+    /**
+     * <p>
+     * Returns the value of this field in the given entity.
+     * </p>
+     * 
+     * @param entity the entity whose field to read
+     * @return the field's value
+     */
+    public abstract long get(E entity);
+    
+    /**
+     * <p>
+     * Writes the value of this field in the given entity, without recording the change. This is called by
+     * {@link #set(Entity, long) set()} and when reverting a change.
+     * </p>
+     * 
+     * @param entity the entity whose field to write
+     * @param value the field's new value
+     */
+    protected abstract void put(E entity, long value);
+    
+    /**
+     * <p>
+     * Sets the value of this field in the given entity, and records the change in the current action.
+     * </p>
+     * 
+     * @param entity the entity whose field to set
+     * @param value the field's new value
+     */
+    public final void set(E entity, long value) {
+        long old = get(entity);
+        if(old == value) return;
+        Action.get().addFieldChange(this, entity, old, null);
+        put(entity, value);
+    }
+    
+    @Override
+    final void revert0(E entity, long bits, Object ref) {
+        put(entity, bits);
+    }
+}
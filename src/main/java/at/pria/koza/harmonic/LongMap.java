@@ -0,0 +1,214 @@
+/**
+ * LongMap.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+
+/**
+ * <p>
+ * The class {@code LongMap} is a hash map from primitive {@code long} keys to non-null values. It uses open
+ * addressing with linear probing over parallel key and value arrays, so that neither lookups nor insertions box
+ * keys or allocate entry objects. A read-only {@link Map} view is only created for callers that
+ * {@linkplain #asMap() ask for one}.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+class LongMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    
+    private long[]           keys;
+    private Object[]         values;
+    private int              size;
+    private Map<Long, V>     view;
+    
+    public LongMap() {
+        keys = new long[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+    }
+    
+    //package-private for tests, which need keys colliding at the end of the table
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15l;
+        return (int) (h ^ (h >>> 32));
+    }
+    
+    /**
+     * <p>
+     * Returns the slot holding the given key, or the empty slot where it would be inserted.
+     * </p>
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while(values[i] != null && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean containsKey(long key) {
+        return values[slot(key)] != null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) values[slot(key)];
+    }
+    
+    /**
+     * <p>
+     * Associates the value with the given key.
+     * </p>
+     * 
+     * @param key the key
+     * @param value the value; not {@code null}
+     * @return the value previously associated with the key, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if(value == null) throw new IllegalArgumentException();
+        int i = slot(key);
+        V result = (V) values[i];
+        keys[i] = key;
+        values[i] = value;
+        if(result == null && ++size > keys.length >> 1) resize(keys.length << 1);
+        return result;
+    }
+    
+    /**
+     * <p>
+     * Removes the value associated with the given key. Subsequent entries of the probe sequence are shifted back,
+     * so that no deletion markers are necessary.
+     * </p>
+     * 
+     * @param key the key
+     * @return the value previously associated with the key, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = slot(key);
+        V result = (V) values[i];
+        if(result == null) return null;
+        
+        int mask = keys.length - 1;
+        for(int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            //move the entry at j into the hole at i, unless its home slot lies cyclically in (i, j]
+            int home = hash(keys[j]) & mask;
+            if(i <= j? (i < home && home <= j):(i < home || home <= j)) continue;
+            keys[i] = keys[j];
+            values[i] = values[j];
+            i = j;
+        }
+        values[i] = null;
+        size--;
+        return result;
+    }
+    
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        for(int i = 0; i < oldKeys.length; i++)
+            if(oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+    }
+    
+    /**
+     * <p>
+     * Returns a read-only {@link Map} view of this map. The view boxes keys on every access, so it should not be
+     * used on performance critical paths.
+     * </p>
+     * 
+     * @return a read-only view of this map
+     */
+    public Map<Long, V> asMap() {
+        if(view == null) view = new View();
+        return view;
+    }
+    
+    private class View extends AbstractMap<Long, V> {
+        private Set<Map.Entry<Long, V>> entrySet;
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Long && LongMap.this.containsKey((Long) key);
+        }
+        
+        @Override
+        public V get(Object key) {
+            return key instanceof Long? LongMap.this.get((Long) key):null;
+        }
+        
+        @Override
+        public Set<Map.Entry<Long, V>> entrySet() {
+            if(entrySet == null) entrySet = new AbstractSet<Map.Entry<Long, V>>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+                
+                @Override
+                public Iterator<Map.Entry<Long, V>> iterator() {
+                    return new EntryIterator();
+                }
+            };
+            return entrySet;
+        }
+    }
+    
+    private class EntryIterator implements Iterator<Map.Entry<Long, V>> {
+        private final long[]   keys   = LongMap.this.keys;
+        private final Object[] values = LongMap.this.values;
+        private int            next   = advance(0);
+        
+        private int advance(int i) {
+            while(i < values.length && values[i] == null)
+                i++;
+            return i;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Long, V> next() {
+            if(!hasNext()) throw new NoSuchElementException();
+            Map.Entry<Long, V> result = new AbstractMap.SimpleImmutableEntry<>(keys[next], (V) values[next]);
+            next = advance(next + 1);
+            return result;
+        }
+        
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * ObjectField.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+/**
+ * <p>
+ * An {@code ObjectField} describes a reference field of an entity class, and records changes to it in the current
+ * {@link Action}'s undo log. See {@link AbstractField} for details. Changes are detected by identity.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ * @param <E> the entity class declaring the field
+ * @param <T> the field's type
+ */
+public abstract class ObjectField<E extends Entity, T> extends AbstractField<E> {
+    /**
+     * <p>
+     * Returns the value of this field in the given entity.
+     * </p>
+     * 
+     * @param entity the entity whose field to read
+     * @return the field's value
+     */
+    public abstract T get(E entity);
+    
+    /**
+     * <p>
+     * Writes the value of this field in the given entity, without recording the change. This is called by
+     * {@link #set(Entity, Object) set()} and when reverting a change.
+     * </p>
+     * 
+     * @param entity the entity whose field to write
+     * @param value the field's new value
+     */
+    protected abstract void put(E entity, T value);
+    
+    /**
+     * <p>
+     * Sets the value of this field in the given entity, and records the change in the current action.
+     * </p>
+     * 
+     * @param entity the entity whose field to set
+     * @param value the field's new value
+     */
+    public final void set(E entity, T value) {
+        T old = get(entity);
+        if(old == value) return;
+        Action.get().addFieldChange(this, entity, 0, old);
+        put(entity, value);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Override
+    final void revert0(E entity, long bits, Object ref) {
+        put(entity, (T) ref);
+    }
+}
@@ -9,6 +9,7 @@ package at.pria.koza.harmonic;
 
 import static java.lang.String.*;
 import at.pria.koza.harmonic.proto.HarmonicP.StateP;
+import at.pria.koza.harmonic.trace.Tracer;
 import at.pria.koza.polybuf.PolybufConfig;
 import at.pria.koza.polybuf.PolybufException;
 import at.pria.koza.polybuf.PolybufIO;
@@ -43,10 +44,16 @@ public class State implements PolybufSerializable {
     private final Engine engine;
     private final long   id;
     private final State  parent;
+    private final int    depth;
+    //an ancestor for skipping over parents; see getAncestor()
+    private final State  jump;
     
     private final Obj    actionObj;
     private Action       action;
     
+    //a snapshot of the engine's entities after applying this state, if one was taken
+    Engine.Checkpoint    checkpoint;
+    
     /**
      * <p>
      * Creates a root state for the given engine.
@@ -71,6 +78,20 @@ public class State implements PolybufSerializable {
                 parent.getEngine().getConfig(), action));
     }
     
+    /**
+     * <p>
+     * Creates a new state with the given parent and the same action as this state, using the
+     * {@linkplain Engine#nextStateId() next generated state ID}. The action is not serialized again.
+     * </p>
+     * 
+     * @param parent the parent state for the new state
+     * @return the new state
+     */
+    State copyTo(State parent) {
+        if(parent.getEngine() != engine) throw new IllegalArgumentException();
+        return new State(engine, parent, engine.nextStateId(), actionObj);
+    }
+    
     //helper method to call from constructor
     private static Obj serialize(PolybufConfig config, Action action) {
         try {
@@ -95,6 +116,15 @@ public class State implements PolybufSerializable {
         this.engine = engine;
         this.id = id;
         this.parent = parent;
+        if(parent == null) {
+            depth = 0;
+            jump = this;
+        } else {
+            depth = parent.depth + 1;
+            //skew-binary jump pointers: if the parent's jump and the jump's jump span equal distances, combine them
+            State j = parent.jump;
+            jump = parent.depth - j.depth == j.depth - j.jump.depth? j.jump:parent;
+        }
         this.actionObj = action;
         engine.putState(this);
     }
@@ -146,19 +176,77 @@ public class State implements PolybufSerializable {
         return parent;
     }
     
-    void apply() {
-        assert action == null;
+    /**
+     * <p>
+     * Returns this state's depth, i.e. the number of states between it and the root state. The root state has a
+     * depth of zero.
+     * </p>
+     * 
+     * @return this state's depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+    
+    /**
+     * <p>
+     * Deserializes this state's action. This only reads the state's immutable serialized form and the engine's
+     * polybuf config, so it may be called from any thread, e.g. for decoding ahead of applying states on the engine's
+     * {@linkplain Engine#getDecodingPool() decoding pool}.
+     * </p>
+     * 
+     * @return a newly decoded instance of this state's action
+     */
+    Action decode() {
+        EngineMetrics metrics = engine.metrics;
+        long start = metrics.measuring? System.nanoTime():0;
+        Action action;
         try {
             action = (Action) new PolybufInput(engine.getConfig()).readObject(actionObj);
         } catch(PolybufException ex) {
             throw new AssertionError(ex);
         }
+        if(metrics.measuring) metrics.decodeTime.record(System.nanoTime() - start);
+        return action;
+    }
+    
+    /**
+     * <p>
+     * Applies this state's action. If no action is given, a cached action is used, or the action is decoded.
+     * </p>
+     * 
+     * @param action the already decoded action, or {@code null}
+     */
+    void apply(Action action) {
+        assert this.action == null;
+        Tracer tracer = engine.getTracer();
+        Object span = tracer.beginApply();
+        if(action == null) action = engine.takeCachedAction(this);
+        if(action == null) action = decode();
+        this.action = action;
         action.apply();
+        if(span != null) tracer.endApply(span, this, action);
     }
     
     void revert() {
         assert action != null;
+        Tracer tracer = engine.getTracer();
+        Object span = tracer.beginRevert();
         action.revert();
+        if(span != null) tracer.endRevert(span, this, action);
+        engine.cacheAction(this, action);
+        action = null;
+    }
+    
+    /**
+     * <p>
+     * Forgets this state's applied action without reverting it. This is used when the engine's entities are
+     * replaced by {@linkplain Engine.Checkpoint restoring a checkpoint}, which invalidates the action's
+     * modifications. As the action was not reverted, it is not cached for reuse either.
+     * </p>
+     */
+    void discard() {
+        assert action != null;
         action = null;
     }
     
@@ -174,70 +262,95 @@ public class State implements PolybufSerializable {
         return action;
     }
     
+    /**
+     * <p>
+     * Returns the protobuf representation of this state, consisting of its id, its parent's id and its serialized
+     * action. This must not be called for the root state.
+     * </p>
+     * 
+     * @return the protobuf representation of this state
+     */
+    StateP toProto() {
+        StateP.Builder b = StateP.newBuilder();
+        b.setId(id);
+        b.setParent(parent.id);
+        b.setAction(actionObj);
+        return b.build();
+    }
+    
     @Override
     public int getTypeId() {
         return FIELD;
     }
     
+    /**
+     * <p>
+     * Returns the ancestor of this state that has the given depth. If {@code depth} is this state's depth, this
+     * state is returned.
+     * </p>
+     * <p>
+     * Every state stores, besides its parent, a single jump pointer to an ancestor. The jump pointers are laid out
+     * according to the skew-binary number system, so that this method needs a number of steps logarithmic in the
+     * distance to the ancestor.
+     * </p>
+     * 
+     * @param depth the depth of the ancestor to return
+     * @return the ancestor at the given depth
+     * @see <a href="https://doi.org/10.1016/0020-0190(83)90106-0">E. W. Myers: An applicative random-access
+     *      stack</a>
+     */
+    public State getAncestor(int depth) {
+        if(depth < 0 || depth > this.depth) throw new IllegalArgumentException();
+        State result = this;
+        while(result.depth > depth)
+            result = result.jump.depth >= depth? result.jump:result.parent;
+        return result;
+    }
+    
+    /**
+     * <p>
+     * Returns whether this state is an ancestor of the other state. A state is considered an ancestor of itself.
+     * </p>
+     * 
+     * @param other the state to check
+     * @return whether this state is an ancestor of {@code other}
+     */
+    public boolean isAncestorOf(State other) {
+        if(getEngine() != other.getEngine()) throw new IllegalArgumentException();
+        return other.depth >= depth && other.getAncestor(depth) == this;
+    }
+    
     /**
      * <p>
      * Computes and returns the nearest common predecessor between this and another state. More formally, this
      * returns the state that is a predecessor of both {@code this} and {@code other}, but whose children are not.
      * </p>
      * <p>
-     * This method may return the root state of the engine, but never {@code null}.
+     * This method may return the root state of the engine, but never {@code null}. It needs a number of steps
+     * logarithmic in the distance to the common predecessor.
      * </p>
      * 
      * @param other the other state for which to find the nearest common predecessor
      * @return the nearest common predecessor state
-     * @see <a href="http://twistedoakstudios.com/blog/Post3280__">Algorithm source</a>
      */
     public State getCommonPredecessor(State other) {
         if(getEngine() != other.getEngine()) throw new IllegalArgumentException();
         
-        //code taken from
-        //http://twistedoakstudios.com/blog/Post3280_intersecting-linked-lists-faster
-        
-        // find *any* common node, and the distances to it
+        //bring both states to the same depth
         State node0 = this, node1 = other;
-        int dist0 = 0, dist1 = 0;
-        int stepSize = 1;
+        if(node0.depth > node1.depth) node0 = node0.getAncestor(node1.depth);
+        else node1 = node1.getAncestor(node0.depth);
         
+        //states of equal depth have jump pointers of equal depth, so jump whenever that does not skip the
+        //common predecessor
         while(node0 != node1) {
-            // advance each node progressively farther, watching for the other node
-            for(int i = 0; i < stepSize; i++) {
-                if(node0.getId() == 0) break;
-                if(node0 == node1) break;
-                node0 = node0.getParent();
-                dist0 += 1;
+            if(node0.jump != node1.jump) {
+                node0 = node0.jump;
+                node1 = node1.jump;
+            } else {
+                node0 = node0.parent;
+                node1 = node1.parent;
             }
-            stepSize *= 2;
-            for(int i = 0; i < stepSize; i++) {
-                if(node1.getId() == 0) break;
-                if(node0 == node1) break;
-                node1 = node1.getParent();
-                dist1 += 1;
-            }
-            stepSize *= 2;
-        }
-        
-        node0 = this;
-        node1 = other;
-        // align heads to be an equal distance from the first common node
-        int r = dist1 - dist0;
-        while(r < 0) {
-            node0 = node0.getParent();
-            r += 1;
-        }
-        while(r > 0) {
-            node1 = node1.getParent();
-            r -= 1;
-        }
-        
-        // advance heads until they meet at the first common node
-        while(node0 != node1) {
-            node0 = node0.getParent();
-            node1 = node1.getParent();
         }
         return node0;
     }
@@ -267,12 +380,7 @@ public class State implements PolybufSerializable {
         
         @Override
         public void serialize(PolybufOutput out, State object, Obj.Builder obj) throws PolybufException {
-            StateP.Builder b = StateP.newBuilder();
-            b.setId(object.id);
-            b.setParent(object.parent.id);
-            b.setAction(object.actionObj);
-            
-            obj.setExtension(EXTENSION, b.build());
+            obj.setExtension(EXTENSION, object.toProto());
         }
         
         @Override
@@ -0,0 +1,294 @@
+/**
+ * StateJournal.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import static java.lang.String.*;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import at.pria.koza.harmonic.proto.HarmonicP.StateP;
+
+import com.google.protobuf.ExtensionRegistry;
+
+
+/**
+ * <p>
+ * A {@code StateJournal} persists the history of a {@link BranchManager} in an append-only journal on disk, so
+ * that after a restart, the history can be restored locally instead of being requested from other
+ * BranchManagers again. Every state added to the engine and every branch change is appended to the journal as a
+ * record. When a journal is opened, the records already in it are replayed into the BranchManager before new
+ * changes are recorded, restoring all states and the branch tips.
+ * </p>
+ * <p>
+ * The journal is a directory of segment files of a fixed size, which are memory mapped, so appending a record
+ * doesn't involve a system call. When a record doesn't fit into the current segment, a new one is started.
+ * Records consist of the length of the rest of the record, a type byte, and the record's payload. Only states
+ * and branches are recorded; the current branch is not persisted. States removed by
+ * {@linkplain BranchManager#collectGarbage() garbage collection} are recorded as well and are not restored,
+ * although their records remain in the journal.
+ * </p>
+ * <p>
+ * A journal should be opened on a newly created BranchManager, and states of that BranchManager's engine are
+ * only continued correctly if it was created with the same {@linkplain BranchManager#BranchManager(int) id} as
+ * in previous runs. Records are written to the operating system when they are appended, so they survive the
+ * process terminating; use {@link #flush()} to also write them to the storage device.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class StateJournal implements StateRemovalListener, BranchListener, Closeable {
+    public static final int             DEFAULT_SEGMENT_SIZE = 16 << 20;
+    
+    private static final byte           STATE                = 1;
+    private static final byte           BRANCH               = 2;
+    private static final byte           DELETE               = 3;
+    private static final byte           REMOVE               = 4;
+    
+    private static final Charset        CHARSET              = StandardCharsets.UTF_8;
+    private static final String         SUFFIX               = ".journal";
+    
+    private final BranchManager         mgr;
+    private final File                  directory;
+    private final int                   segmentSize;
+    
+    private int                         segment;
+    private MappedByteBuffer            buffer;
+    
+    /**
+     * <p>
+     * Opens the journal in the given directory with the {@linkplain #DEFAULT_SEGMENT_SIZE default segment size},
+     * replays it into the given BranchManager, and starts recording the BranchManager's changes.
+     * </p>
+     * 
+     * @param mgr the BranchManager whose history to persist
+     * @param directory the directory containing the journal's segments
+     * @throws IOException if the journal can't be read or created
+     */
+    public StateJournal(BranchManager mgr, File directory) throws IOException {
+        this(mgr, directory, DEFAULT_SEGMENT_SIZE);
+    }
+    
+    /**
+     * <p>
+     * Opens the journal in the given directory, replays it into the given BranchManager, and starts recording the
+     * BranchManager's changes. The segment size only applies to new segments; records larger than it get a
+     * segment of their own.
+     * </p>
+     * 
+     * @param mgr the BranchManager whose history to persist
+     * @param directory the directory containing the journal's segments
+     * @param segmentSize the size of new segment files
+     * @throws IOException if the journal can't be read or created
+     */
+    public StateJournal(BranchManager mgr, File directory, int segmentSize) throws IOException {
+        if(segmentSize <= 0) throw new IllegalArgumentException();
+        if(!directory.isDirectory() && !directory.mkdirs()) throw new IOException("can't create " + directory);
+        this.mgr = mgr;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        
+        replay();
+        
+        mgr.getEngine().addStateListener(this);
+        mgr.addBranchListener(this);
+    }
+    
+    //replay
+    
+    private void replay() throws IOException {
+        ExtensionRegistry registry = mgr.getEngine().getConfig().getRegistry();
+        //the recorded states that were not removed afterwards, in the order they were added
+        Map<Long, StateP> states = new LinkedHashMap<>();
+        //the last recorded tip of every branch, or null if the branch was deleted
+        Map<String, Long> tips = new LinkedHashMap<>();
+        
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SUFFIX);
+            }
+        });
+        //segment names have a fixed width, so they sort chronologically
+        Arrays.sort(files);
+        
+        segment = -1;
+        for(File file:files) {
+            segment = Integer.parseInt(file.getName().substring(0, file.getName().length() - SUFFIX.length()), 16);
+            buffer = map(file, file.length());
+            
+            for(;;) {
+                int position = buffer.position();
+                if(buffer.remaining() < 4) break;
+                int length = buffer.getInt();
+                //a zero length marks the end of the segment
+                if(length <= 0 || length > buffer.remaining()) {
+                    buffer.position(position);
+                    break;
+                }
+                
+                byte type = buffer.get();
+                byte[] payload = new byte[length - 1];
+                buffer.get(payload);
+                
+                switch(type) {
+                    case STATE: {
+                        StateP state = StateP.parseFrom(payload, registry);
+                        //even if the state is removed later, its id must not be generated again
+                        mgr.getEngine().reserveStateId(state.getId());
+                        states.put(state.getId(), state);
+                        break;
+                    }
+                    case REMOVE:
+                        states.remove(ByteBuffer.wrap(payload).getLong());
+                        break;
+                    case BRANCH: {
+                        ByteBuffer b = ByteBuffer.wrap(payload);
+                        long state = b.getLong();
+                        String branch = new String(payload, b.position(), b.remaining(), CHARSET);
+                        tips.remove(branch);
+                        tips.put(branch, state);
+                        break;
+                    }
+                    case DELETE: {
+                        String branch = new String(payload, CHARSET);
+                        tips.remove(branch);
+                        tips.put(branch, null);
+                        break;
+                    }
+                    default:
+                        throw new IOException(format("unknown record type %d in %s", type, file));
+                }
+            }
+        }
+        
+        for(StateP state:states.values())
+            mgr.restoreState(state);
+        
+        //only move the branches once to their final tips
+        Engine engine = mgr.getEngine();
+        for(Map.Entry<String, Long> entry:tips.entrySet()) {
+            String branch = entry.getKey();
+            boolean exists = mgr.getBranches().contains(branch);
+            if(entry.getValue() == null) {
+                if(exists && !branch.equals(mgr.getCurrentBranch())) mgr.deleteBranch(branch);
+            } else {
+                State state = engine.getState(entry.getValue());
+                if(state == null) throw new IOException(format("unknown tip %016X of branch %s", entry.getValue(),
+                        branch));
+                if(exists) mgr.setBranchTip(branch, state);
+                else mgr.createBranch(branch, state);
+            }
+        }
+    }
+    
+    //append
+    
+    private static MappedByteBuffer map(File file, long size) throws IOException {
+        //the mapping stays valid after closing the file
+        try(RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            return raf.getChannel().map(MapMode.READ_WRITE, 0, size);
+        }
+    }
+    
+    private void append(byte type, byte[] payload, int offset, int length) {
+        //the length field counts the type and payload
+        int record = 4 + 1 + length;
+        try {
+            if(buffer == null || buffer.remaining() < record) {
+                //the rest of the segment stays zero, marking its end
+                if(buffer != null) buffer.force();
+                segment++;
+                File file = new File(directory, format("%08X%s", segment, SUFFIX));
+                buffer = map(file, Math.max(segmentSize, record));
+            }
+        } catch(IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        
+        //write the length last, so that a partially written record is not read back
+        int position = buffer.position();
+        buffer.position(position + 4);
+        buffer.put(type);
+        buffer.put(payload, offset, length);
+        buffer.putInt(position, 1 + length);
+    }
+    
+    private void append(byte type, long state, String branch) {
+        byte[] name = branch.getBytes(CHARSET);
+        ByteBuffer payload = ByteBuffer.allocate(8 + name.length);
+        payload.putLong(state);
+        payload.put(name);
+        append(type, payload.array(), 0, payload.capacity());
+    }
+    
+    /**
+     * <p>
+     * Writes all appended records to the storage device.
+     * </p>
+     */
+    public synchronized void flush() {
+        if(buffer != null) buffer.force();
+    }
+    
+    /**
+     * <p>
+     * Stops recording the BranchManager's changes and flushes the journal.
+     * </p>
+     */
+    @Override
+    public synchronized void close() {
+        mgr.getEngine().removeStateListener(this);
+        mgr.removeBranchListener(this);
+        flush();
+        //the segment is unmapped when the buffer is garbage collected
+        buffer = null;
+    }
+    
+    //listeners
+    
+    @Override
+    public synchronized void stateAdded(State state) {
+        byte[] payload = state.toProto().toByteArray();
+        append(STATE, payload, 0, payload.length);
+    }
+    
+    @Override
+    public synchronized void stateRemoved(State state) {
+        byte[] payload = ByteBuffer.allocate(8).putLong(state.getId()).array();
+        append(REMOVE, payload, 0, payload.length);
+    }
+    
+    @Override
+    public synchronized void branchCreated(BranchManager mgr, String branch, State head) {
+        append(BRANCH, head.getId(), branch);
+    }
+    
+    @Override
+    public synchronized void branchMoved(BranchManager mgr, String branch, State prevHead, State newHead) {
+        append(BRANCH, newHead.getId(), branch);
+    }
+    
+    @Override
+    public synchronized void branchDeleted(BranchManager mgr, String branch, State prevHead) {
+        byte[] name = branch.getBytes(CHARSET);
+        append(DELETE, name, 0, name.length);
+    }
+}
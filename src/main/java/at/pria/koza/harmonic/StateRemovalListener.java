@@ -0,0 +1,31 @@
+/**
+ * StateRemovalListener.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+/**
+ * <p>
+ * {@code StateRemovalListener} extends {@link StateListener} to also detect when states are removed from an
+ * engine. It is registered like any other state listener, via {@link Engine#addStateListener(StateListener)
+ * addStateListener()}.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public interface StateRemovalListener extends StateListener {
+    /**
+     * <p>
+     * Called when a {@link State} is removed by {@linkplain BranchManager#collectGarbage() garbage collection},
+     * because it was no longer reachable. The state is no longer {@linkplain Engine#getState(long) known} to the
+     * engine at this point.
+     * </p>
+     * 
+     * @param state the state that was removed
+     */
+    public void stateRemoved(State state);
+}
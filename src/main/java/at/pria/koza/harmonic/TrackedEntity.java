@@ -0,0 +1,30 @@
+/**
+ * TrackedEntity.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+/**
+ * <p>
+ * {@code TrackedEntity} marks entities whose field changes are recorded automatically. Every write to a
+ * non-static, non-transient field of a tracked entity is intercepted by the {@code EntityTracking} aspect and
+ * recorded in the current {@link Action}'s undo log like an {@link AbstractField} change, so that actions don't
+ * need to implement {@link Modification Modifications} for them. Writes that don't change a field's value are
+ * skipped, and repeated writes to the same field within an action are coalesced.
+ * </p>
+ * <p>
+ * Fields of tracked entities may only be written while an action is being applied; writes in the entity's
+ * constructors are not recorded, as a new entity is discarded as a whole when its action is reverted. Writes
+ * from code that doesn't process Harmonic's aspects are not tracked, and {@code RestrictedAccess} forbids
+ * writing tracked fields from {@code Modification}s and {@code AbstractField}s, which would record the change
+ * again. Writes of {@code int}, {@code long}, {@code double}, {@code boolean} and reference fields are recorded
+ * without allocating; the other primitive types are boxed.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public interface TrackedEntity extends Entity {}
@@ -0,0 +1,95 @@
+/**
+ * TrackedField.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import java.lang.reflect.Field;
+
+
+/**
+ * <p>
+ * A {@code TrackedField} is the {@link AbstractField} used by the {@code EntityTracking} aspect to record and
+ * revert changes of a {@linkplain TrackedEntity tracked entity's} field. It reads and restores the field via
+ * reflection; the new value is written by the intercepted code itself.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+final class TrackedField extends AbstractField<TrackedEntity> {
+    private final Field    field;
+    private final Class<?> type;
+    
+    public TrackedField(Field field) {
+        field.setAccessible(true);
+        this.field = field;
+        type = field.getType();
+    }
+    
+    public boolean isPrimitive() {
+        return type.isPrimitive();
+    }
+    
+    public int getInt(TrackedEntity entity) {
+        try {
+            return field.getInt(entity);
+        } catch(IllegalAccessException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+    
+    public long getLong(TrackedEntity entity) {
+        try {
+            return field.getLong(entity);
+        } catch(IllegalAccessException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+    
+    public double getDouble(TrackedEntity entity) {
+        try {
+            return field.getDouble(entity);
+        } catch(IllegalAccessException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+    
+    public boolean getBoolean(TrackedEntity entity) {
+        try {
+            return field.getBoolean(entity);
+        } catch(IllegalAccessException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+    
+    public Object get(TrackedEntity entity) {
+        try {
+            return field.get(entity);
+        } catch(IllegalAccessException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+    
+    @Override
+    void revert0(TrackedEntity entity, long bits, Object ref) {
+        try {
+            if(type == int.class) field.setInt(entity, (int) bits);
+            else if(type == long.class) field.setLong(entity, bits);
+            else if(type == double.class) field.setDouble(entity, Double.longBitsToDouble(bits));
+            else if(type == boolean.class) field.setBoolean(entity, bits != 0);
+            //references and the remaining, boxed primitive types
+            else field.set(entity, ref);
+        } catch(IllegalAccessException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return field.toString();
+    }
+}
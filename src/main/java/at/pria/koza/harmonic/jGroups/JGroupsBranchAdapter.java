@@ -9,8 +9,18 @@ package at.pria.koza.harmonic.jGroups;
 
 import static at.pria.koza.harmonic.proto.HarmonicP.SyncP.Type.*;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jgroups.Address;
 import org.jgroups.JChannel;
@@ -19,91 +29,452 @@ import org.jgroups.ReceiverAdapter;
 
 import at.pria.koza.harmonic.BranchManager;
 import at.pria.koza.harmonic.BranchManager.SyncCallback;
+import at.pria.koza.harmonic.State;
+import at.pria.koza.harmonic.metrics.Counter;
+import at.pria.koza.harmonic.metrics.Gauge;
+import at.pria.koza.harmonic.metrics.Histogram;
+import at.pria.koza.harmonic.metrics.MetricRegistry;
 import at.pria.koza.harmonic.proto.HarmonicP.SyncP;
+import at.pria.koza.harmonic.trace.Tracer;
 import at.pria.koza.polybuf.proto.Polybuf.Obj;
 
 
 /**
  * <p>
- * {@code JGroupsBranchAdapter}
+ * {@code JGroupsBranchAdapter} synchronizes a {@link BranchManager} with remote BranchManagers over a
+ * {@link JChannel}.
+ * </p>
+ * <p>
+ * By default, received messages are processed on the JGroups delivery thread. In pipelined mode, the delivery
+ * thread only decodes messages and hands them to a single worker thread owned by the adapter, which then is the
+ * only thread accessing the BranchManager. That way, slow head moves don't stall the transport. When the worker's
+ * queue is full, the delivery thread blocks until there is space again; tasks submitted by the worker itself are
+ * queued regardless, so that it doesn't wait for itself. Either way, tasks are executed in the order they were
+ * submitted. In pipelined mode, any other access to the BranchManager must be {@linkplain #execute(Runnable)
+ * executed} on the worker thread, too. After the adapter was {@linkplain #close() closed}, received messages and
+ * submitted tasks are dropped.
  * </p>
  * 
  * @version V0.0 04.08.2013
  * @author SillyFreak
  */
 public class JGroupsBranchAdapter extends ReceiverAdapter {
-    private final JChannel      ch;
-    private final BranchManager mgr;
+    private final JChannel           ch;
+    private final BranchManager      mgr;
+    private final SyncCodec          codec;
+    private final ThreadPoolExecutor executor;
+    //free space in the worker's queue, limiting only the tasks not submitted by the worker
+    private final Semaphore          capacity;
+    private volatile Thread          worker;
+    private int                      chunkSize;
+    
+    //statistics of pipelined mode
+    private final AtomicLong         processed       = new AtomicLong();
+    private final AtomicLong         totalQueueNanos = new AtomicLong();
+    private final AtomicLong         maxQueueNanos   = new AtomicLong();
     
+    //metrics
+    private Counter                  messagesSent, bytesSent;
+    private Counter                  messagesReceived, bytesReceived;
+    private Histogram                queueLatency;
+    
+    /**
+     * <p>
+     * Creates an adapter that processes received messages on the delivery thread.
+     * </p>
+     * 
+     * @param ch the channel to communicate over
+     * @param mgr the BranchManager to synchronize
+     */
     public JGroupsBranchAdapter(JChannel ch, BranchManager mgr) {
+        this(ch, mgr, 0);
+    }
+    
+    /**
+     * <p>
+     * Creates an adapter that processes received messages on a worker thread, if {@code queueCapacity} is
+     * positive.
+     * </p>
+     * 
+     * @param ch the channel to communicate over
+     * @param mgr the BranchManager to synchronize
+     * @param queueCapacity the maximum number of messages waiting to be processed, or {@code 0} to process
+     *            messages on the delivery thread
+     */
+    public JGroupsBranchAdapter(JChannel ch, BranchManager mgr, int queueCapacity) {
+        if(queueCapacity < 0) throw new IllegalArgumentException();
         this.ch = ch;
         this.mgr = mgr;
+        codec = new SyncCodec(mgr.getEngine().getConfig().getRegistry());
+        setMetricRegistry(mgr.getEngine().getMetricRegistry());
+        
+        if(queueCapacity == 0) {
+            executor = null;
+            capacity = null;
+        } else {
+            //the queue itself is unbounded, so that the worker can always append to it
+            executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "harmonic-" + JGroupsBranchAdapter.this.mgr.getEngine());
+                            t.setDaemon(true);
+                            return worker = t;
+                        }
+                    });
+            capacity = new Semaphore(queueCapacity);
+        }
     }
     
-    @Override
-    public void receive(Message msg) {
+    /**
+     * <p>
+     * Sets the registry this adapter reports metrics to: the number of messages and bytes sent and received, and
+     * in pipelined mode, the queue depth and the time tasks wait for the worker thread. By default, the adapter
+     * uses the registry of the BranchManager's engine at the time the adapter was created.
+     * </p>
+     * 
+     * @param metricRegistry the registry to report metrics to
+     */
+    public void setMetricRegistry(MetricRegistry metricRegistry) {
+        messagesSent = metricRegistry.counter("harmonic.jgroups.messages.sent");
+        bytesSent = metricRegistry.counter("harmonic.jgroups.bytes.sent");
+        messagesReceived = metricRegistry.counter("harmonic.jgroups.messages.received");
+        bytesReceived = metricRegistry.counter("harmonic.jgroups.bytes.received");
+        queueLatency = metricRegistry.histogram("harmonic.jgroups.queue.latency");
+        metricRegistry.gauge("harmonic.jgroups.queue.depth", new Gauge() {
+            @Override
+            public long getValue() {
+                return getQueueDepth();
+            }
+        });
+    }
+    
+    /**
+     * <p>
+     * Returns whether this adapter processes received messages on a worker thread.
+     * </p>
+     * 
+     * @return whether this adapter is in pipelined mode
+     */
+    public boolean isPipelined() {
+        return executor != null;
+    }
+    
+    /**
+     * <p>
+     * Executes a task accessing the BranchManager. In pipelined mode, the task is queued for the worker thread;
+     * otherwise, it is executed immediately. If the adapter was closed, the task is dropped.
+     * </p>
+     * 
+     * @param task the task to execute
+     */
+    public void execute(final Runnable task) {
+        if(executor == null) {
+            task.run();
+            return;
+        }
+        if(executor.isShutdown()) return;
+        
+        //backpressure: wait for space in the queue, unless the worker would wait for itself
+        final boolean bounded = Thread.currentThread() != worker;
+        if(bounded) {
+            try {
+                capacity.acquire();
+            } catch(InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(ex);
+            }
+        }
+        
+        final long queued = System.nanoTime();
         try {
-            Address src = msg.getSrc();
-            ByteArrayInputStream bais = new ByteArrayInputStream(msg.getRawBuffer(), msg.getOffset(),
-                    msg.getLength());
-            SyncP m = SyncP.parseFrom(bais, mgr.getEngine().getConfig().getRegistry());
-            
-            switch(m.getType()) {
-                case RECEIVE_UPDATE: {
-                    long[] ancestors = new long[m.getStateIdsCount()];
-                    for(int i = 0; i < ancestors.length; i++)
-                        ancestors[i] = m.getStateIds(i);
-                    receiveUpdate(src, m.getEngine(), m.getBranch(), m.getStates(0), ancestors);
-                    break;
-                }
-                case SEND_MISSING: {
-                    sendMissing(src, m.getEngine(), m.getBranch(), m.getStateIds(0));
-                    break;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if(bounded) capacity.release();
+                    runQueued(task, queued);
                 }
-                case RECEIVE_MISSING: {
-                    Obj[] ancestors = m.getStatesList().toArray(new Obj[m.getStatesCount()]);
-                    receiveMissing(src, m.getEngine(), m.getBranch(), m.getStateIds(0), ancestors);
-                    break;
+            });
+        } catch(RejectedExecutionException ex) {
+            //closed concurrently
+            if(bounded) capacity.release();
+        }
+    }
+    
+    private void runQueued(Runnable task, long queued) {
+        long latency = System.nanoTime() - queued;
+        totalQueueNanos.addAndGet(latency);
+        for(long max; latency > (max = maxQueueNanos.get()) && !maxQueueNanos.compareAndSet(max, latency);) {}
+        processed.incrementAndGet();
+        queueLatency.record(latency);
+        
+        try {
+            task.run();
+        } catch(RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+    
+    /**
+     * <p>
+     * Stops the worker thread in pipelined mode after all queued tasks were executed, and releases the native
+     * memory of the codec.
+     * </p>
+     */
+    public void close() {
+        if(executor == null) {
+            codec.close();
+        } else if(!executor.isShutdown()) {
+            //after the queued tasks, which may still send messages
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    codec.close();
                 }
-                default:
-                    throw new AssertionError();
-            }
+            });
+            executor.shutdown();
+        }
+    }
+    
+    /**
+     * <p>
+     * Returns the number of tasks waiting for the worker thread in pipelined mode.
+     * </p>
+     * 
+     * @return the number of waiting tasks
+     */
+    public int getQueueDepth() {
+        return executor == null? 0:executor.getQueue().size();
+    }
+    
+    /**
+     * <p>
+     * Returns the number of tasks the worker thread started executing in pipelined mode.
+     * </p>
+     * 
+     * @return the number of processed tasks
+     */
+    public long getProcessedCount() {
+        return processed.get();
+    }
+    
+    /**
+     * <p>
+     * Returns the total time tasks spent waiting for the worker thread in pipelined mode.
+     * </p>
+     * 
+     * @return the total queue latency in nanoseconds
+     */
+    public long getTotalQueueLatency() {
+        return totalQueueNanos.get();
+    }
+    
+    /**
+     * <p>
+     * Returns the longest time a task spent waiting for the worker thread in pipelined mode.
+     * </p>
+     * 
+     * @return the maximum queue latency in nanoseconds
+     */
+    public long getMaxQueueLatency() {
+        return maxQueueNanos.get();
+    }
+    
+    /**
+     * <p>
+     * Returns the codec used to encode and decode messages, which can be used to configure compression.
+     * </p>
+     * 
+     * @return the codec used to encode and decode messages
+     */
+    public SyncCodec getCodec() {
+        return codec;
+    }
+    
+    /**
+     * <p>
+     * Returns the maximum number of missing states sent in one message.
+     * </p>
+     * 
+     * @return the maximum number of missing states sent in one message, or {@code 0} for no limit
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+    
+    /**
+     * <p>
+     * Sets the maximum number of missing states sent in one message. If more states are missing at a remote
+     * BranchManager, they are streamed in chunks, each one sent after the receiver acknowledged the previous one.
+     * </p>
+     * 
+     * @param chunkSize the maximum number of missing states sent in one message, or {@code 0} for no limit
+     * 
+     * @see BranchManager#sendMissing(int, String, long, int, SyncCallback)
+     */
+    public void setChunkSize(int chunkSize) {
+        if(chunkSize < 0) throw new IllegalArgumentException();
+        this.chunkSize = chunkSize;
+    }
+    
+    @Override
+    public void receive(Message msg) {
+        //the codec may already be closed
+        if(executor != null && executor.isShutdown()) return;
+        
+        final Address src = msg.getSrc();
+        final SyncP m;
+        Tracer tracer = mgr.getEngine().getTracer();
+        Object span = tracer.beginMessage();
+        try {
+            messagesReceived.increment();
+            bytesReceived.add(msg.getLength());
+            m = codec.decode(msg.getRawBuffer(), msg.getOffset(), msg.getLength());
+            if(span != null) tracer.endMessage(span, false, m.getType().name(), msg.getLength());
         } catch(IOException ex) {
             ex.printStackTrace();
+            return;
+        }
+        
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if(m.getType() == BATCH) {
+                    //answer all messages of a batch in one batch
+                    Batch batch = new Batch(src);
+                    for(SyncP entry:m.getBatchList())
+                        receive(src, entry, batch);
+                    batch.flush();
+                } else {
+                    receive(src, m, new Callback(src));
+                }
+            }
+        });
+    }
+    
+    private void receive(Address src, SyncP m, SyncCallback callback) {
+        switch(m.getType()) {
+            case RECEIVE_UPDATE: {
+                long[] ancestors = new long[m.getStateIdsCount()];
+                for(int i = 0; i < ancestors.length; i++)
+                    ancestors[i] = m.getStateIds(i);
+                receiveUpdate(src, callback, m.getEngine(), m.getBranch(), m.getStates(0), ancestors);
+                break;
+            }
+            case SEND_MISSING: {
+                sendMissing(src, callback, m.getEngine(), m.getBranch(), m.getStateIds(0));
+                break;
+            }
+            case RECEIVE_MISSING: {
+                Obj[] ancestors = m.getStatesList().toArray(new Obj[m.getStatesCount()]);
+                receiveMissing(src, callback, m.getEngine(), m.getBranch(), m.getStateIds(0), ancestors);
+                break;
+            }
+            default:
+                throw new AssertionError();
         }
     }
     
     private void send(Address dst, SyncP message) {
+        Tracer tracer = mgr.getEngine().getTracer();
+        Object span = tracer.beginMessage();
         try {
-            ch.send(new Message(dst, message.toByteArray()));
+            byte[] data = codec.encode(message);
+            ch.send(new Message(dst, data));
+            messagesSent.increment();
+            bytesSent.add(data.length);
+            if(span != null) tracer.endMessage(span, true, message.getType().name(), data.length);
         } catch(Exception ex) {
             ex.printStackTrace();
         }
     }
     
-    public void sendUpdate(Address dst, int engine, String branch) {
-        mgr.sendUpdate(engine, branch, new Callback(dst));
+    public void sendUpdate(final Address dst, final int engine, final String branch) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                mgr.sendUpdate(engine, branch, new Callback(dst));
+            }
+        });
+    }
+    
+    /**
+     * <p>
+     * Sends updates for several branches in one message. The remote adapter answers all of them in one message as
+     * well, and so on, so that synchronizing any number of branches takes the same number of messages as
+     * synchronizing one. States that are missing for more than one of the branches are only sent once.
+     * </p>
+     * 
+     * @param dst the address of the remote adapter
+     * @param engine the remote BranchManager's engine id
+     * @param branches the branches to update
+     */
+    public void sendUpdates(final Address dst, final int engine, final Iterable<String> branches) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                Batch batch = new Batch(dst);
+                for(String branch:branches)
+                    mgr.sendUpdate(engine, branch, batch);
+                batch.flush();
+            }
+        });
     }
     
+    /**
+     * @deprecated messages are dispatched to
+     *             {@link #receiveUpdate(Address, SyncCallback, int, String, Obj, long...)}, which allows batching
+     *             the answer; overriding this method has no effect on received messages
+     */
+    @Deprecated
     protected void receiveUpdate(Address src, int engine, String branch, Obj state, long... ancestors) {
-        mgr.receiveUpdate(engine, branch, state, ancestors, new Callback(src));
+        receiveUpdate(src, new Callback(src), engine, branch, state, ancestors);
     }
     
+    /**
+     * @deprecated messages are dispatched to {@link #sendMissing(Address, SyncCallback, int, String, long)},
+     *             which allows batching the answer; overriding this method has no effect on received messages
+     */
+    @Deprecated
     protected void sendMissing(Address dst, int engine, String branch, long ancestor) {
-        mgr.sendMissing(engine, branch, ancestor, new Callback(dst));
+        sendMissing(dst, new Callback(dst), engine, branch, ancestor);
     }
     
+    /**
+     * @deprecated messages are dispatched to
+     *             {@link #receiveMissing(Address, SyncCallback, int, String, long, Obj...)}, which allows
+     *             acknowledging chunks; overriding this method has no effect on received messages
+     */
+    @Deprecated
     protected void receiveMissing(Address src, int engine, String branch, long state, Obj... ancestors) {
-        mgr.receiveMissing(engine, branch, state, ancestors);
+        receiveMissing(src, new Callback(src), engine, branch, state, ancestors);
+    }
+    
+    protected void receiveUpdate(Address src, SyncCallback callback, int engine, String branch, Obj state,
+            long... ancestors) {
+        mgr.receiveUpdate(engine, branch, state, ancestors, callback);
+    }
+    
+    protected void sendMissing(Address dst, SyncCallback callback, int engine, String branch, long ancestor) {
+        mgr.sendMissing(engine, branch, ancestor, chunkSize, callback);
+    }
+    
+    protected void receiveMissing(Address src, SyncCallback callback, int engine, String branch, long state,
+            Obj... ancestors) {
+        mgr.receiveMissing(engine, branch, state, ancestors, callback);
     }
     
     private class Callback implements SyncCallback {
-        private final Address dst;
+        protected final Address dst;
         
         public Callback(Address dst) {
             this.dst = dst;
         }
         
+        protected void send(SyncP.Builder message) {
+            JGroupsBranchAdapter.this.send(dst, message.build());
+        }
+        
         @Override
         public void sendUpdateCallback(int engine, String branch, Obj state, long... ancestors) {
             SyncP.Builder b = SyncP.newBuilder();
@@ -113,7 +484,7 @@ public class JGroupsBranchAdapter extends ReceiverAdapter {
             b.addStates(state);
             for(long ancestor:ancestors)
                 b.addStateIds(ancestor);
-            send(dst, b.build());
+            send(b);
         }
         
         @Override
@@ -123,7 +494,7 @@ public class JGroupsBranchAdapter extends ReceiverAdapter {
             b.setEngine(engine);
             b.setBranch(branch);
             b.addStateIds(ancestor);
-            send(dst, b.build());
+            send(b);
         }
         
         @Override
@@ -135,7 +506,45 @@ public class JGroupsBranchAdapter extends ReceiverAdapter {
             b.addStateIds(state);
             for(Obj ancestor:ancestors)
                 b.addStates(ancestor);
-            send(dst, b.build());
+            send(b);
+        }
+    }
+    
+    /**
+     * <p>
+     * A callback that collects all messages into one {@link SyncP.Type#BATCH BATCH} message, which is sent when
+     * {@linkplain #flush() flushed}. As the receiver processes the batch in order, missing states that were
+     * already contained in an earlier message of the batch are omitted, except for the most recent state of each
+     * message.
+     * </p>
+     */
+    private class Batch extends Callback {
+        private final SyncP.Builder batch  = SyncP.newBuilder().setType(BATCH);
+        private final Set<Long>     states = new HashSet<>();
+        
+        public Batch(Address dst) {
+            super(dst);
+        }
+        
+        @Override
+        protected void send(SyncP.Builder message) {
+            if(message.getType() == RECEIVE_MISSING) {
+                //the most recent state is always kept, so that the receiver can acknowledge a chunk of history
+                //that was completely contained in an earlier message
+                List<Obj> ancestors = new ArrayList<>(message.getStatesList());
+                message.clearStates();
+                for(int i = 0; i < ancestors.size(); i++) {
+                    Obj ancestor = ancestors.get(i);
+                    if(states.add(ancestor.getExtension(State.EXTENSION).getId()) || i == ancestors.size() - 1)
+                        message.addStates(ancestor);
+                }
+            }
+            batch.addBatch(message);
+        }
+        
+        public void flush() {
+            if(batch.getBatchCount() == 1) JGroupsBranchAdapter.this.send(dst, batch.getBatch(0));
+            else if(batch.getBatchCount() > 1) JGroupsBranchAdapter.this.send(dst, batch.build());
         }
     }
 }
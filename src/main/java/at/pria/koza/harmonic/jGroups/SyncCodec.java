@@ -0,0 +1,273 @@
+/**
+ * SyncCodec.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.jGroups;
+
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import at.pria.koza.harmonic.proto.HarmonicP.SyncP;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.ExtensionRegistry;
+import com.google.protobuf.WireFormat;
+
+
+/**
+ * <p>
+ * {@code SyncCodec} converts {@link SyncP} messages to and from the bytes sent by a {@link JGroupsBranchAdapter}.
+ * If compression is enabled, messages of at least a threshold size are deflate-compressed and wrapped in another
+ * {@code SyncP}'s {@code deflated} field. As action streams are usually highly repetitive, this saves a large
+ * part of the bytes on the wire, especially for batches and missing states. Compressed messages are always
+ * understood by the decoder, so both ends need not agree on whether to compress.
+ * </p>
+ * <p>
+ * A preset dictionary, e.g. the serialized form of typical messages, improves compression of small messages.
+ * Both ends of a session must use the same dictionary, as a message compressed with a dictionary can't be
+ * decompressed without it.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class SyncCodec {
+    public static final int         DEFAULT_THRESHOLD = 256;
+    public static final int         DEFAULT_MAX_SIZE  = 64 << 20;
+    //the largest buffer that is kept for reuse
+    public static final int         MAX_RETAINED      = 1 << 20;
+    private static final int        MIN_BUFFER        = 4096;
+    
+    private final ExtensionRegistry registry;
+    //created on demand, as they hold native memory until ended
+    private Deflater                deflater;
+    private Inflater                inflater;
+    
+    private boolean                 compressing;
+    private int                     threshold         = DEFAULT_THRESHOLD;
+    private int                     maxSize           = DEFAULT_MAX_SIZE;
+    private byte[]                  dictionary;
+    
+    //reusable buffers for uncompressed and compressed data
+    private byte[]                  plain, packed;
+    
+    public SyncCodec(ExtensionRegistry registry) {
+        this.registry = registry;
+    }
+    
+    public synchronized boolean isCompressing() {
+        return compressing;
+    }
+    
+    /**
+     * <p>
+     * Sets whether messages are compressed when encoding.
+     * </p>
+     * 
+     * @param compressing whether to compress messages of at least the {@linkplain #setThreshold(int) threshold}
+     *            size
+     */
+    public synchronized void setCompressing(boolean compressing) {
+        this.compressing = compressing;
+    }
+    
+    public synchronized int getThreshold() {
+        return threshold;
+    }
+    
+    /**
+     * <p>
+     * Sets the minimum size of a serialized message to be compressed. Smaller messages are sent uncompressed, as
+     * they would hardly get any smaller.
+     * </p>
+     * 
+     * @param threshold the minimum size in bytes of a message to be compressed
+     */
+    public synchronized void setThreshold(int threshold) {
+        if(threshold < 0) throw new IllegalArgumentException();
+        this.threshold = threshold;
+    }
+    
+    public synchronized int getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * <p>
+     * Sets the maximum decompressed size of a received message. As the decompressed size is announced by the
+     * sender, messages claiming a larger size are rejected instead of allocating a buffer for them.
+     * </p>
+     * 
+     * @param maxSize the maximum size in bytes of a decompressed message
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if(maxSize < 0) throw new IllegalArgumentException();
+        this.maxSize = maxSize;
+    }
+    
+    public synchronized byte[] getDictionary() {
+        return dictionary == null? null:dictionary.clone();
+    }
+    
+    /**
+     * <p>
+     * Sets the preset dictionary used for compressing and decompressing messages. The most common byte sequences
+     * should be near the end of the dictionary.
+     * </p>
+     * 
+     * @param dictionary the preset dictionary, or {@code null}
+     */
+    public synchronized void setDictionary(byte[] dictionary) {
+        this.dictionary = dictionary == null? null:dictionary.clone();
+    }
+    
+    /**
+     * <p>
+     * Returns a reusable buffer of at least the given size, replacing the given buffer if it is too small.
+     * Buffers larger than {@link #MAX_RETAINED} bytes are not retained.
+     * </p>
+     */
+    private static byte[] buffer(byte[] buffer, int size) {
+        return buffer != null && buffer.length >= size? buffer:new byte[Math.max(size, MIN_BUFFER)];
+    }
+    
+    private byte[] plain(int size) {
+        byte[] result = buffer(plain, size);
+        plain = result.length <= MAX_RETAINED? result:null;
+        return result;
+    }
+    
+    private byte[] packed(int size) {
+        byte[] result = buffer(packed, size);
+        packed = result.length <= MAX_RETAINED? result:null;
+        return result;
+    }
+    
+    /**
+     * <p>
+     * Encodes a message, compressing it if compression is enabled and the message is large enough. The result is
+     * a newly allocated array of exactly the encoded size, as the transport may keep it, e.g. for retransmission;
+     * any intermediate buffers needed for compression are reused between calls.
+     * </p>
+     * 
+     * @param message the message to encode
+     * @return the encoded message
+     */
+    public synchronized byte[] encode(SyncP message) {
+        try {
+            int size = message.getSerializedSize();
+            if(!compressing || size < threshold) {
+                byte[] result = new byte[size];
+                write(message, result);
+                return result;
+            }
+            
+            byte[] data = plain(size);
+            write(message, data);
+            
+            if(deflater == null) deflater = new Deflater();
+            deflater.reset();
+            if(dictionary != null) deflater.setDictionary(dictionary);
+            deflater.setInput(data, 0, size);
+            deflater.finish();
+            
+            //only use the compressed form if it's actually smaller
+            byte[] deflated = packed(size);
+            int length = 0;
+            while(!deflater.finished() && length < size)
+                length += deflater.deflate(deflated, length, size - length);
+            
+            int wrapped = CodedOutputStream.computeTagSize(SyncP.DEFLATED_FIELD_NUMBER)
+                    + CodedOutputStream.computeRawVarint32Size(length) + length
+                    + CodedOutputStream.computeUInt32Size(SyncP.INFLATEDSIZE_FIELD_NUMBER, size);
+            if(!deflater.finished() || wrapped >= size) return Arrays.copyOf(data, size);
+            
+            //write the wrapping message by hand to avoid copying the compressed bytes into a ByteString
+            byte[] result = new byte[wrapped];
+            CodedOutputStream out = CodedOutputStream.newInstance(result);
+            out.writeTag(SyncP.DEFLATED_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeRawVarint32(length);
+            out.writeRawBytes(deflated, 0, length);
+            out.writeUInt32(SyncP.INFLATEDSIZE_FIELD_NUMBER, size);
+            out.checkNoSpaceLeft();
+            return result;
+        } catch(IOException ex) {
+            //writing to arrays of the right size does not fail
+            throw new AssertionError(ex);
+        }
+    }
+    
+    private static void write(SyncP message, byte[] buf) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(buf, 0, message.getSerializedSize());
+        message.writeTo(out);
+        out.checkNoSpaceLeft();
+    }
+    
+    /**
+     * <p>
+     * Decodes a message, decompressing it if necessary. The message is parsed directly from the given buffer
+     * region; decompression uses buffers that are reused between calls.
+     * </p>
+     * 
+     * @param buf the buffer containing the encoded message
+     * @param offset the offset of the encoded message in the buffer
+     * @param length the length of the encoded message
+     * @return the decoded message
+     * @throws IOException if the message can't be decoded
+     */
+    public synchronized SyncP decode(byte[] buf, int offset, int length) throws IOException {
+        SyncP m = SyncP.parseFrom(CodedInputStream.newInstance(buf, offset, length), registry);
+        if(!m.hasDeflated()) return m;
+        
+        //the sizes come from the peer, so check them before allocating buffers; messages are only sent compressed
+        //if that makes them smaller
+        ByteString deflated = m.getDeflated();
+        int size = m.getInflatedSize();
+        if(size < 0 || size > maxSize || deflated.size() >= size) throw new IOException("invalid compressed size");
+        byte[] input = packed(deflated.size());
+        deflated.copyTo(input, 0);
+        
+        byte[] data = plain(size);
+        try {
+            if(inflater == null) inflater = new Inflater();
+            inflater.reset();
+            inflater.setInput(input, 0, deflated.size());
+            int inflated = 0;
+            while(!inflater.finished()) {
+                if(inflater.needsDictionary()) {
+                    if(dictionary == null) throw new IOException("compressed message requires a dictionary");
+                    inflater.setDictionary(dictionary);
+                }
+                int n = inflater.inflate(data, inflated, size - inflated);
+                if(n == 0 && (inflater.needsInput() || inflated == size))
+                    throw new IOException("corrupt compressed message");
+                inflated += n;
+            }
+            if(inflated != size) throw new IOException("corrupt compressed message");
+        } catch(DataFormatException ex) {
+            throw new IOException(ex);
+        }
+        return SyncP.parseFrom(CodedInputStream.newInstance(data, 0, size), registry);
+    }
+    
+    /**
+     * <p>
+     * Releases the native memory held for compression and decompression. The codec may still be used afterwards,
+     * which allocates it again.
+     * </p>
+     */
+    public synchronized void close() {
+        if(deflater != null) deflater.end();
+        if(inflater != null) inflater.end();
+        deflater = null;
+        inflater = null;
+    }
+}
@@ -0,0 +1,34 @@
+/**
+ * Counter.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.metrics;
+
+
+/**
+ * <p>
+ * A {@code Counter} is a metric that counts events, such as states received or bytes sent.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public interface Counter {
+    /**
+     * <p>
+     * Adds one to this counter.
+     * </p>
+     */
+    public void increment();
+    
+    /**
+     * <p>
+     * Adds the given amount to this counter.
+     * </p>
+     * 
+     * @param amount the amount to add
+     */
+    public void add(long amount);
+}
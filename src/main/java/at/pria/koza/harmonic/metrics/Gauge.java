@@ -0,0 +1,29 @@
+/**
+ * Gauge.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.metrics;
+
+
+/**
+ * <p>
+ * A {@code Gauge} is a metric whose current value is read on demand, such as the number of states in an engine.
+ * Gauges are implemented by the measured code and {@linkplain MetricRegistry#gauge(String, Gauge) registered}
+ * with a registry.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public interface Gauge {
+    /**
+     * <p>
+     * Returns the gauge's current value. This may be called from any thread.
+     * </p>
+     * 
+     * @return the gauge's current value
+     */
+    public long getValue();
+}
@@ -0,0 +1,28 @@
+/**
+ * Histogram.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.metrics;
+
+
+/**
+ * <p>
+ * A {@code Histogram} is a metric that records the distribution of values, such as latencies in nanoseconds or
+ * the number of states processed by an operation.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public interface Histogram {
+    /**
+     * <p>
+     * Records a value.
+     * </p>
+     * 
+     * @param value the value to record
+     */
+    public void record(long value);
+}
@@ -0,0 +1,56 @@
+/**
+ * MetricRegistry.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.metrics;
+
+
+/**
+ * <p>
+ * A {@code MetricRegistry} provides the metrics Harmonic reports to. Harmonic's components look up their metrics
+ * when a registry is set, so the lookup may be slow, but the returned metrics should be cheap to update. Asking
+ * twice for a metric with the same name should return the same metric, so that several components, e.g. the
+ * engines in one process, report to shared metrics.
+ * </p>
+ * <p>
+ * Harmonic uses the {@linkplain NoopMetricRegistry no-op registry} by default, which also skips taking time
+ * measurements. Use {@link SimpleMetricRegistry} to keep metrics in memory, or implement this interface to bridge
+ * to a metrics library.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public interface MetricRegistry {
+    /**
+     * <p>
+     * Returns the counter with the given name.
+     * </p>
+     * 
+     * @param name the metric's name
+     * @return the counter with the given name
+     */
+    public Counter counter(String name);
+    
+    /**
+     * <p>
+     * Returns the histogram with the given name.
+     * </p>
+     * 
+     * @param name the metric's name
+     * @return the histogram with the given name
+     */
+    public Histogram histogram(String name);
+    
+    /**
+     * <p>
+     * Registers a gauge under the given name, replacing any gauge previously registered under that name.
+     * </p>
+     * 
+     * @param name the metric's name
+     * @param gauge the gauge to register
+     */
+    public void gauge(String name, Gauge gauge);
+}
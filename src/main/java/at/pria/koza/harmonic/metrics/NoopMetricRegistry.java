@@ -0,0 +1,45 @@
+/**
+ * NoopMetricRegistry.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.metrics;
+
+
+/**
+ * <p>
+ * {@code NoopMetricRegistry} is the default {@link MetricRegistry}, which discards all metrics. Harmonic's
+ * components recognize this registry and don't take time measurements while it is used.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public final class NoopMetricRegistry implements MetricRegistry, Counter, Histogram {
+    public static final NoopMetricRegistry INSTANCE = new NoopMetricRegistry();
+    
+    private NoopMetricRegistry() {}
+    
+    @Override
+    public Counter counter(String name) {
+        return this;
+    }
+    
+    @Override
+    public Histogram histogram(String name) {
+        return this;
+    }
+    
+    @Override
+    public void gauge(String name, Gauge gauge) {}
+    
+    @Override
+    public void increment() {}
+    
+    @Override
+    public void add(long amount) {}
+    
+    @Override
+    public void record(long value) {}
+}
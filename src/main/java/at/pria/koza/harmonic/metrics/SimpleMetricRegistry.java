@@ -0,0 +1,173 @@
+/**
+ * SimpleMetricRegistry.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.metrics;
+
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * <p>
+ * {@code SimpleMetricRegistry} is a {@link MetricRegistry} that keeps all metrics in memory. Its current values
+ * can be {@linkplain #getValues() read} at any time, e.g. to be logged or exported periodically.
+ * </p>
+ * <p>
+ * Histograms count values in buckets whose bounds are powers of two, so reported percentiles are upper bounds that
+ * may be up to twice the actual value. Besides percentiles, the exact count, sum and maximum are reported.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class SimpleMetricRegistry implements MetricRegistry {
+    private final ConcurrentMap<String, SimpleCounter>   counters   = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, SimpleHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Gauge>           gauges     = new ConcurrentHashMap<>();
+    
+    @Override
+    public SimpleCounter counter(String name) {
+        SimpleCounter result = counters.get(name);
+        if(result == null) {
+            SimpleCounter c = counters.putIfAbsent(name, result = new SimpleCounter());
+            if(c != null) result = c;
+        }
+        return result;
+    }
+    
+    @Override
+    public SimpleHistogram histogram(String name) {
+        SimpleHistogram result = histograms.get(name);
+        if(result == null) {
+            SimpleHistogram h = histograms.putIfAbsent(name, result = new SimpleHistogram());
+            if(h != null) result = h;
+        }
+        return result;
+    }
+    
+    @Override
+    public void gauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+    
+    /**
+     * <p>
+     * Returns the current values of all metrics, sorted by name. Counters and gauges are reported under their own
+     * names; histograms are reported as {@code <name>.count}, {@code .sum}, {@code .max}, {@code .p50},
+     * {@code .p90} and {@code .p99}.
+     * </p>
+     * 
+     * @return the current values of all metrics
+     */
+    public SortedMap<String, Long> getValues() {
+        SortedMap<String, Long> result = new TreeMap<>();
+        for(Map.Entry<String, SimpleCounter> entry:counters.entrySet())
+            result.put(entry.getKey(), entry.getValue().getValue());
+        for(Map.Entry<String, Gauge> entry:gauges.entrySet())
+            result.put(entry.getKey(), entry.getValue().getValue());
+        for(Map.Entry<String, SimpleHistogram> entry:histograms.entrySet()) {
+            String name = entry.getKey();
+            SimpleHistogram h = entry.getValue();
+            result.put(name + ".count", h.getCount());
+            result.put(name + ".sum", h.getSum());
+            result.put(name + ".max", h.getMax());
+            result.put(name + ".p50", h.getPercentile(0.5));
+            result.put(name + ".p90", h.getPercentile(0.9));
+            result.put(name + ".p99", h.getPercentile(0.99));
+        }
+        return result;
+    }
+    
+    @Override
+    public String toString() {
+        return getValues().toString();
+    }
+    
+    /**
+     * <p>
+     * A counter backed by an {@link AtomicLong}.
+     * </p>
+     */
+    public static class SimpleCounter implements Counter {
+        private final AtomicLong value = new AtomicLong();
+        
+        @Override
+        public void increment() {
+            value.incrementAndGet();
+        }
+        
+        @Override
+        public void add(long amount) {
+            value.addAndGet(amount);
+        }
+        
+        public long getValue() {
+            return value.get();
+        }
+    }
+    
+    /**
+     * <p>
+     * A histogram counting values in buckets whose bounds are powers of two. Negative values are counted as zero.
+     * </p>
+     */
+    public static class SimpleHistogram implements Histogram {
+        //bucket i counts values with i significant bits, i.e. less than 2^i and (for i > 0) at least 2^(i-1)
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+        private final AtomicLong      count   = new AtomicLong();
+        private final AtomicLong      sum     = new AtomicLong();
+        private final AtomicLong      max     = new AtomicLong();
+        
+        @Override
+        public void record(long value) {
+            if(value < 0) value = 0;
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            for(long m; value > (m = max.get()) && !max.compareAndSet(m, value);) {}
+        }
+        
+        public long getCount() {
+            return count.get();
+        }
+        
+        public long getSum() {
+            return sum.get();
+        }
+        
+        public long getMax() {
+            return max.get();
+        }
+        
+        /**
+         * <p>
+         * Returns an upper bound of the given percentile of the recorded values, or zero if there are none. The
+         * bound is the upper bound of the bucket containing the percentile, but at most the maximum value.
+         * </p>
+         * 
+         * @param percentile the percentile, between zero and one
+         * @return an upper bound of the given percentile
+         */
+        public long getPercentile(double percentile) {
+            long rank = (long) Math.ceil(percentile * count.get());
+            long seen = 0;
+            for(int i = 0; i < Long.SIZE; i++) {
+                seen += buckets.get(i);
+                if(seen >= rank && seen > 0) {
+                    long bound = i == Long.SIZE - 1? Long.MAX_VALUE:(1l << i) - 1;
+                    return Math.min(bound, max.get());
+                }
+            }
+            return max.get();
+        }
+    }
+}
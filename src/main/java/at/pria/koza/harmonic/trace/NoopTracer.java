@@ -0,0 +1,66 @@
+/**
+ * NoopTracer.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.trace;
+
+
+import at.pria.koza.harmonic.Action;
+import at.pria.koza.harmonic.State;
+
+
+/**
+ * <p>
+ * {@code NoopTracer} is the default {@link Tracer}, which doesn't trace any operation.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public final class NoopTracer implements Tracer {
+    public static final NoopTracer INSTANCE = new NoopTracer();
+    
+    private NoopTracer() {}
+    
+    @Override
+    public Object beginApply() {
+        return null;
+    }
+    
+    @Override
+    public void endApply(Object span, State state, Action action) {}
+    
+    @Override
+    public Object beginRevert() {
+        return null;
+    }
+    
+    @Override
+    public void endRevert(Object span, State state, Action action) {}
+    
+    @Override
+    public Object beginHeadMove() {
+        return null;
+    }
+    
+    @Override
+    public void endHeadMove(Object span, State prevHead, State newHead, int reverted, int applied, boolean restored) {}
+    
+    @Override
+    public Object beginSync() {
+        return null;
+    }
+    
+    @Override
+    public void endSync(Object span, String operation, int engine, String branch, int states) {}
+    
+    @Override
+    public Object beginMessage() {
+        return null;
+    }
+    
+    @Override
+    public void endMessage(Object span, boolean sent, String type, int bytes) {}
+}
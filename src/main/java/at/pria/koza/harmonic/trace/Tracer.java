@@ -0,0 +1,139 @@
+/**
+ * Tracer.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic.trace;
+
+
+import at.pria.koza.harmonic.Action;
+import at.pria.koza.harmonic.State;
+
+
+/**
+ * <p>
+ * A {@code Tracer} receives timed events about individual operations of Harmonic, e.g. to record them with a
+ * profiler alongside GC pauses and thread stalls. Every operation is reported in two calls: a {@code begin} call
+ * before the operation, returning a span token, and an {@code end} call after it, receiving that token and the
+ * operation's details. If a {@code begin} method returns {@code null}, the operation is not traced and the
+ * corresponding {@code end} method is not called, so a tracer that isn't recording only pays for the
+ * {@code begin} call.
+ * </p>
+ * <p>
+ * Harmonic uses the {@linkplain NoopTracer no-op tracer} by default. Tracers are called on the threads performing
+ * the operations, and an operation's {@code end} call happens on the same thread as its {@code begin} call.
+ * Operations may nest, e.g. applying states happens during moving the head.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public interface Tracer {
+    /**
+     * <p>
+     * Called before a state's action is applied.
+     * </p>
+     * 
+     * @return a span token, or {@code null} if applying states is not traced
+     */
+    public Object beginApply();
+    
+    /**
+     * <p>
+     * Called after a state's action was applied.
+     * </p>
+     * 
+     * @param span the token returned by {@link #beginApply()}
+     * @param state the applied state
+     * @param action the applied action
+     */
+    public void endApply(Object span, State state, Action action);
+    
+    /**
+     * <p>
+     * Called before a state's action is reverted.
+     * </p>
+     * 
+     * @return a span token, or {@code null} if reverting states is not traced
+     */
+    public Object beginRevert();
+    
+    /**
+     * <p>
+     * Called after a state's action was reverted.
+     * </p>
+     * 
+     * @param span the token returned by {@link #beginRevert()}
+     * @param state the reverted state
+     * @param action the reverted action
+     */
+    public void endRevert(Object span, State state, Action action);
+    
+    /**
+     * <p>
+     * Called before an engine's head is moved.
+     * </p>
+     * 
+     * @return a span token, or {@code null} if head moves are not traced
+     */
+    public Object beginHeadMove();
+    
+    /**
+     * <p>
+     * Called after an engine's head was moved.
+     * </p>
+     * 
+     * @param span the token returned by {@link #beginHeadMove()}
+     * @param prevHead the previous head
+     * @param newHead the new head
+     * @param reverted the number of states that were reverted
+     * @param applied the number of states that were applied
+     * @param restored whether the entities were restored from a checkpoint instead of reverting states
+     */
+    public void endHeadMove(Object span, State prevHead, State newHead, int reverted, int applied, boolean restored);
+    
+    /**
+     * <p>
+     * Called before a BranchManager processes a synchronization step.
+     * </p>
+     * 
+     * @return a span token, or {@code null} if synchronization is not traced
+     */
+    public Object beginSync();
+    
+    /**
+     * <p>
+     * Called after a BranchManager processed a synchronization step.
+     * </p>
+     * 
+     * @param span the token returned by {@link #beginSync()}
+     * @param operation the name of the BranchManager method, e.g. {@code receiveUpdate} or {@code sendMissing}
+     * @param engine the id of the remote engine
+     * @param branch the synchronized branch
+     * @param states the number of states received or sent in this step
+     */
+    public void endSync(Object span, String operation, int engine, String branch, int states);
+    
+    /**
+     * <p>
+     * Called before a synchronization message is sent or received by a transport.
+     * </p>
+     * 
+     * @return a span token, or {@code null} if messages are not traced
+     */
+    public Object beginMessage();
+    
+    /**
+     * <p>
+     * Called after a synchronization message was sent or received by a transport. For a sent message, the span
+     * covers encoding and sending; for a received message, it covers decoding.
+     * </p>
+     * 
+     * @param span the token returned by {@link #beginMessage()}
+     * @param sent {@code true} if the message was sent, {@code false} if it was received
+     * @param type the message type
+     * @param bytes the size of the encoded message
+     */
+    public void endMessage(Object span, boolean sent, String type, int bytes);
+}
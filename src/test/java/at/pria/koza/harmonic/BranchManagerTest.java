@@ -0,0 +1,174 @@
+/**
+ * BranchManagerTest.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.pria.koza.harmonic.BranchManager.SyncCallback;
+import at.pria.koza.polybuf.proto.Polybuf.Obj;
+
+
+/**
+ * <p>
+ * {@code BranchManagerTest} synchronizes branches between two {@link BranchManager BranchManagers} in the same
+ * process, streaming the missing states in chunks of different sizes, and moving or resetting the sender's branch
+ * while chunks are in flight.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class BranchManagerTest {
+    private static final String BRANCH = BranchManager.BRANCH_DEFAULT;
+    
+    @Test
+    public void chunkedSync() {
+        for(int limit:new int[] {0, 1, 2, 7, 50, 51, 1000}) {
+            BranchManager sender = manager(1), receiver = manager(2);
+            extend(sender, 50);
+            Link link = new Link(sender, receiver, limit);
+            link.sync();
+            assertSynced(sender, receiver);
+            
+            //one chunk per limit states; the tip itself is sent with the update
+            int chunks = limit == 0? 1:(48 + limit) / limit;
+            assertEquals("limit " + limit, chunks, link.chunks.size());
+            for(int size:link.chunks)
+                assertTrue(limit == 0 || size <= limit);
+            
+            //an incremental update only sends the new states
+            extend(sender, 10);
+            link.chunks.clear();
+            link.sync();
+            assertSynced(sender, receiver);
+            assertEquals(limit == 0? 1:(8 + limit) / limit, link.chunks.size());
+        }
+    }
+    
+    @Test
+    public void branchMovesBetweenChunks() {
+        for(int limit:new int[] {1, 2, 5}) {
+            final BranchManager sender = manager(1), receiver = manager(2);
+            extend(sender, 30);
+            Link link = new Link(sender, receiver, limit) {
+                @Override
+                protected void acknowledged(int acks) {
+                    //the sender keeps executing while the receiver catches up
+                    if(acks < 10) extend(sender, 3);
+                }
+            };
+            link.sync();
+            assertSynced(sender, receiver);
+        }
+    }
+    
+    @Test
+    public void branchResetBetweenChunks() {
+        for(int limit:new int[] {2, 3, 5}) {
+            final BranchManager sender = manager(1), receiver = manager(2);
+            extend(sender, 1);
+            final State reset = sender.getBranchTip(BRANCH);
+            extend(sender, 30);
+            Link link = new Link(sender, receiver, limit) {
+                @Override
+                protected void acknowledged(int acks) {
+                    //the state acknowledged for the first chunk is no longer on the branch after this
+                    if(acks == 2) {
+                        sender.setBranchTip(BRANCH, reset);
+                        extend(sender, 5);
+                    }
+                }
+            };
+            link.sync();
+            assertSynced(sender, receiver);
+        }
+    }
+    
+    @Test
+    public void onlyTipMissing() {
+        final BranchManager sender = manager(1), receiver = manager(2);
+        extend(sender, 5);
+        Link link = new Link(sender, receiver, 0);
+        link.sync();
+        
+        //acknowledge the tip's parent, as a receiver would that was not offered a tip added in the meantime
+        extend(sender, 1);
+        State tip = sender.getBranchTip(BRANCH);
+        link.chunks.clear();
+        link.receiveUpdateCallback(receiver.getEngine().getId(), BRANCH, tip.getParent().getId());
+        assertSynced(sender, receiver);
+        assertTrue(link.chunks.isEmpty());
+    }
+    
+    private static BranchManager manager(int id) {
+        BranchManager mgr = new BranchManager(id);
+        mgr.configure(mgr.getEngine().getConfig());
+        CompositeAction.configure(mgr.getEngine().getConfig(), mgr.getEngine());
+        return mgr;
+    }
+    
+    private static void extend(BranchManager mgr, int states) {
+        for(int i = 0; i < states; i++)
+            mgr.execute(new CompositeAction(mgr.getEngine()));
+    }
+    
+    private static void assertSynced(BranchManager sender, BranchManager receiver) {
+        State expected = sender.getBranchTip(BRANCH), actual = receiver.getBranchTip(BRANCH);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getDepth(), actual.getDepth());
+        for(; expected != null; expected = expected.getParent(), actual = actual.getParent())
+            assertEquals(expected.getId(), actual.getId());
+    }
+    
+    /**
+     * <p>
+     * Passes sync messages between two BranchManagers directly, and records the size of every chunk of missing
+     * states.
+     * </p>
+     */
+    private static class Link implements SyncCallback {
+        private final BranchManager sender, receiver;
+        private final int           limit;
+        private int                 acks;
+        public final List<Integer>  chunks = new ArrayList<>();
+        
+        public Link(BranchManager sender, BranchManager receiver, int limit) {
+            this.sender = sender;
+            this.receiver = receiver;
+            this.limit = limit;
+        }
+        
+        public void sync() {
+            sender.sendUpdate(receiver.getEngine().getId(), BRANCH, this);
+        }
+        
+        protected void acknowledged(int acks) {}
+        
+        @Override
+        public void sendUpdateCallback(int engine, String branch, Obj state, long... ancestors) {
+            receiver.receiveUpdate(engine, branch, state, ancestors, this);
+        }
+        
+        @Override
+        public void receiveUpdateCallback(int engine, String branch, long ancestor) {
+            acknowledged(++acks);
+            sender.sendMissing(engine, branch, ancestor, limit, this);
+        }
+        
+        @Override
+        public void sendMissingCallback(int engine, String branch, long state, Obj... ancestors) {
+            chunks.add(ancestors.length);
+            receiver.receiveMissing(engine, branch, state, ancestors, this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * LongMapTest.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+/**
+ * <p>
+ * {@code LongMapTest} compares {@link LongMap} against a {@link HashMap} under random operations, and checks
+ * backward-shift deletion for probe sequences that wrap around the end of the table.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class LongMapTest {
+    //the initial table size; the table doesn't grow while it holds at most half as many entries
+    private static final int CAPACITY = 16;
+    
+    @Test
+    public void randomOperations() {
+        for(int seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            //few distinct keys make collisions, updates and removals of present keys likely
+            int range = 8 << random.nextInt(8);
+            LongMap<Long> map = new LongMap<>();
+            Map<Long, Long> expected = new HashMap<>();
+            for(int i = 0; i < 20000; i++) {
+                long key = random.nextInt(range) - range / 2;
+                switch(random.nextInt(3)) {
+                    case 0:
+                        assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+                        break;
+                    case 1:
+                        assertEquals(expected.remove(key), map.remove(key));
+                        break;
+                    default:
+                        assertEquals(expected.get(key), map.get(key));
+                        assertEquals(expected.containsKey(key), map.containsKey(key));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            assertEquals(expected, map.asMap());
+            assertEquals(expected, new HashMap<>(map.asMap()));
+        }
+    }
+    
+    @Test
+    public void wrapAround() {
+        //keys whose home slots are the last two of the table, so that their probe sequences wrap around
+        List<Long> keys = keysWithHome(CAPACITY - 2, 3);
+        keys.addAll(keysWithHome(CAPACITY - 1, 3));
+        keys.addAll(keysWithHome(0, 2));
+        
+        Random random = new Random(0);
+        for(int run = 0; run < 200; run++) {
+            LongMap<Long> map = new LongMap<>();
+            Map<Long, Long> expected = new HashMap<>();
+            List<Long> order = new ArrayList<>(keys);
+            Collections.shuffle(order, random);
+            for(long key:order) {
+                map.put(key, key);
+                expected.put(key, key);
+            }
+            
+            Collections.shuffle(order, random);
+            for(long key:order) {
+                assertEquals(expected.remove(key), map.remove(key));
+                assertNull(map.remove(key));
+                for(long other:keys)
+                    assertEquals(expected.get(other), map.get(other));
+                assertEquals(expected, map.asMap());
+            }
+            assertEquals(0, map.size());
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void nullValue() {
+        new LongMap<Object>().put(0, null);
+    }
+    
+    private static List<Long> keysWithHome(int home, int count) {
+        List<Long> result = new ArrayList<>();
+        for(long key = 0; result.size() < count; key++)
+            if((LongMap.hash(key) & CAPACITY - 1) == home) result.add(key);
+        return result;
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * StateJournalTest.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * <p>
+ * {@code StateJournalTest} writes {@link StateJournal journals}, reopens them in a new {@link BranchManager}, and
+ * checks that the same states and branch tips are restored, also after garbage collection and after the last
+ * record was cut off.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class StateJournalTest {
+    //small segments, so that the journals span several of them
+    private static final int    SEGMENT_SIZE = 256;
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void reopen() throws IOException {
+        File directory = folder.newFolder();
+        BranchManager mgr = manager();
+        try(StateJournal journal = new StateJournal(mgr, directory, SEGMENT_SIZE)) {
+            extend(mgr, 20);
+            mgr.createBranchHere("a");
+            mgr.createBranchHere("deleted");
+            mgr.setCurrentBranch("a");
+            extend(mgr, 10);
+            mgr.setCurrentBranch(BranchManager.BRANCH_DEFAULT);
+            extend(mgr, 5);
+            mgr.deleteBranch("deleted");
+        }
+        assertTrue(directory.list().length > 1);
+        
+        BranchManager restored = manager();
+        StateJournal journal = new StateJournal(restored, directory, SEGMENT_SIZE);
+        assertSameHistory(mgr, restored);
+        
+        //new states continue after the restored ones, and are journaled as well
+        extend(restored, 5);
+        long tip = mgr.getBranchTip(BranchManager.BRANCH_DEFAULT).getId();
+        assertTrue(restored.getBranchTip(BranchManager.BRANCH_DEFAULT).getId() > tip);
+        journal.close();
+        reopen(restored, directory);
+    }
+    
+    @Test
+    public void garbageCollected() throws IOException {
+        File directory = folder.newFolder();
+        BranchManager mgr = manager();
+        List<Long> removed = new ArrayList<>();
+        try(StateJournal journal = new StateJournal(mgr, directory, SEGMENT_SIZE)) {
+            extend(mgr, 5);
+            mgr.createBranchHere("a");
+            mgr.setCurrentBranch("a");
+            extend(mgr, 10);
+            for(State state = mgr.getBranchTip("a"); state.getDepth() > 5; state = state.getParent())
+                removed.add(state.getId());
+            mgr.setCurrentBranch(BranchManager.BRANCH_DEFAULT);
+            mgr.deleteBranch("a");
+            //the removed states are the most recently created ones
+            assertEquals(10, mgr.collectGarbage());
+        }
+        
+        BranchManager restored = reopen(mgr, directory);
+        for(long id:removed)
+            assertNull(restored.getEngine().getState(id));
+        
+        //the ids of removed states are not generated again
+        extend(restored, 1);
+        long id = restored.getBranchTip(BranchManager.BRANCH_DEFAULT).getId();
+        for(long r:removed)
+            assertTrue(id > r);
+    }
+    
+    @Test
+    public void truncatedRecord() throws IOException {
+        File directory = folder.newFolder();
+        BranchManager mgr = manager();
+        try(StateJournal journal = new StateJournal(mgr, directory, SEGMENT_SIZE)) {
+            extend(mgr, 20);
+        }
+        
+        //cut the last segment in the middle of its last record, the branch moving to the last state
+        File[] files = directory.listFiles();
+        Arrays.sort(files);
+        try(RandomAccessFile raf = new RandomAccessFile(files[files.length - 1], "rw")) {
+            int position = 0, last = 0;
+            for(int length; position + 4 <= raf.length() && (length = raf.readInt()) > 0; position += 4 + length) {
+                last = position;
+                raf.seek(position + 4 + length);
+            }
+            raf.setLength(last + 6);
+        }
+        
+        State tip = mgr.getBranchTip(BranchManager.BRANCH_DEFAULT);
+        BranchManager restored = manager();
+        StateJournal journal = new StateJournal(restored, directory, SEGMENT_SIZE);
+        assertNotNull(restored.getEngine().getState(tip.getId()));
+        assertEquals(tip.getParent().getId(), restored.getBranchTip(BranchManager.BRANCH_DEFAULT).getId());
+        
+        //appending to the journal again doesn't resume the truncated record
+        restored.setBranchTip(BranchManager.BRANCH_DEFAULT, restored.getEngine().getState(tip.getId()));
+        extend(restored, 5);
+        journal.close();
+        reopen(restored, directory);
+    }
+    
+    private static BranchManager manager() {
+        BranchManager mgr = new BranchManager(1);
+        CompositeAction.configure(mgr.getEngine().getConfig(), mgr.getEngine());
+        return mgr;
+    }
+    
+    private static void extend(BranchManager mgr, int states) {
+        for(int i = 0; i < states; i++)
+            mgr.execute(new CompositeAction(mgr.getEngine()));
+    }
+    
+    /**
+     * <p>
+     * Replays the journal into a new BranchManager, and checks that it has the same branches and states on them as
+     * the given one.
+     * </p>
+     */
+    private static BranchManager reopen(BranchManager expected, File directory) throws IOException {
+        BranchManager actual = manager();
+        new StateJournal(actual, directory, SEGMENT_SIZE).close();
+        assertSameHistory(expected, actual);
+        return actual;
+    }
+    
+    private static void assertSameHistory(BranchManager expected, BranchManager actual) {
+        assertEquals(expected.getBranches(), actual.getBranches());
+        for(String branch:expected.getBranches()) {
+            State e = expected.getBranchTip(branch), a = actual.getBranchTip(branch);
+            assertEquals(e.getDepth(), a.getDepth());
+            for(; e != null; e = e.getParent(), a = a.getParent())
+                assertEquals(e.getId(), a.getId());
+        }
+    }
+}
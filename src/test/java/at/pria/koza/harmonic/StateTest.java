@@ -0,0 +1,135 @@
+/**
+ * StateTest.java
+ * 
+ * Created on 17.10.2026
+ */
+
+package at.pria.koza.harmonic;
+
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+
+/**
+ * <p>
+ * {@code StateTest} compares the jump pointer based ancestry queries of {@link State} against naive walks along
+ * the parent pointers, on random trees, deep chains and forks at the root.
+ * </p>
+ * 
+ * @version V1.0 17.10.2026
+ * @author SillyFreak
+ */
+public class StateTest {
+    @Test
+    public void randomTrees() {
+        for(int seed = 0; seed < 10; seed++) {
+            Random random = new Random(seed);
+            Engine engine = new Engine(1);
+            List<State> states = new ArrayList<>();
+            states.add(engine.getState(0l));
+            for(int i = 0; i < 2000; i++) {
+                //mostly extend recent states, so that the tree has long branches as well as many forks
+                int n = states.size();
+                int parent = random.nextInt(4) == 0? random.nextInt(n):Math.max(n - 1 - random.nextInt(8), 0);
+                states.add(newState(states.get(parent)));
+            }
+            
+            for(int i = 0; i < 2000; i++)
+                check(states.get(random.nextInt(states.size())), states.get(random.nextInt(states.size())), random);
+        }
+    }
+    
+    @Test
+    public void deepChains() {
+        Random random = new Random(0);
+        Engine engine = new Engine(1);
+        State root = engine.getState(0l);
+        
+        //two chains forking at the root, and a third one forking deep inside the first
+        List<State> a = chain(root, 20000), b = chain(root, 10000);
+        List<State> c = chain(a.get(15000), 10000);
+        
+        for(int i = 0; i < 1000; i++) {
+            check(a.get(random.nextInt(a.size())), b.get(random.nextInt(b.size())), random);
+            check(a.get(random.nextInt(a.size())), c.get(random.nextInt(c.size())), random);
+            check(a.get(random.nextInt(a.size())), a.get(random.nextInt(a.size())), random);
+        }
+        check(a.get(0), b.get(0), random);
+        check(a.get(0), c.get(0), random);
+        assertSame(root, a.get(0).getCommonPredecessor(b.get(0)));
+        assertSame(a.get(a.size() - 1), a.get(0).getAncestor(1));
+        assertSame(a.get(15000), a.get(0).getCommonPredecessor(c.get(0)));
+    }
+    
+    @Test
+    public void forksAtRoot() {
+        Random random = new Random(0);
+        Engine engine = new Engine(1);
+        State root = engine.getState(0l);
+        List<State> tips = new ArrayList<>();
+        for(int i = 0; i < 50; i++)
+            tips.add(chain(root, 1 + random.nextInt(100)).get(0));
+        
+        for(State x:tips)
+            for(State y:tips) {
+                check(x, y, random);
+                assertSame(x == y? x:root, x.getCommonPredecessor(y));
+            }
+        check(root, root, random);
+    }
+    
+    private static State newState(State parent) {
+        Engine engine = parent.getEngine();
+        return new State(engine, parent, engine.nextStateId(), null);
+    }
+    
+    /**
+     * <p>
+     * Returns a chain of the given length below the given state, with the most recent state first.
+     * </p>
+     */
+    private static List<State> chain(State parent, int length) {
+        List<State> result = new ArrayList<>();
+        for(int i = 0; i < length; i++)
+            result.add(0, parent = newState(parent));
+        return result;
+    }
+    
+    private static void check(State x, State y, Random random) {
+        assertSame(naiveCommonPredecessor(x, y), x.getCommonPredecessor(y));
+        assertSame(naiveCommonPredecessor(x, y), y.getCommonPredecessor(x));
+        assertEquals(naiveIsAncestor(x, y), x.isAncestorOf(y));
+        assertEquals(naiveIsAncestor(y, x), y.isAncestorOf(x));
+        
+        int depth = random.nextInt(x.getDepth() + 1);
+        assertSame(naiveAncestor(x, depth), x.getAncestor(depth));
+    }
+    
+    private static State naiveAncestor(State state, int depth) {
+        while(state.getDepth() > depth)
+            state = state.getParent();
+        return state;
+    }
+    
+    private static boolean naiveIsAncestor(State ancestor, State state) {
+        for(; state != null; state = state.getParent())
+            if(state == ancestor) return true;
+        return false;
+    }
+    
+    private static State naiveCommonPredecessor(State x, State y) {
+        Set<State> ancestors = new HashSet<>();
+        for(; x != null; x = x.getParent())
+            ancestors.add(x);
+        for(; !ancestors.contains(y); y = y.getParent()) {}
+        return y;
+    }
+}